@@ -0,0 +1,42 @@
+/*
+  This planner is a plain A* search over the four neighbours of each square
+  using the Manhattan distance to the goal as the heuristic.
+*/
+public class AStarPlanner extends AbstractGridPlanner {
+  protected int[] search(int start) {
+    reached[start] = search;
+    g[start] = 0;
+    parent[start] = -1;
+    open.add(((long) heuristic(start) << 32) | start);
+
+    while (!open.isEmpty()) {
+      int square = (int) open.poll();
+      // Skip squares that were added again with a better cost
+      if (closed[square] == search) {
+        continue;
+      }
+      closed[square] = search;
+      expansions++;
+      if (square == goal) {
+        return reconstruct(square);
+      }
+
+      int x = square % width;
+      int y = square / width;
+      int cost = g[square] + 1;
+      if (passable(x, y - 1)) {
+        relax(square - width, square, cost);
+      }
+      if (passable(x + 1, y)) {
+        relax(square + 1, square, cost);
+      }
+      if (passable(x, y + 1)) {
+        relax(square + width, square, cost);
+      }
+      if (passable(x - 1, y)) {
+        relax(square - 1, square, cost);
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,123 @@
+import java.util.Arrays;
+
+/*
+  This class holds the search state shared by the A* style planners. The
+  cost so far and parent of each square are kept in flat arrays that are
+  reused between plans; a square's entries are only valid when its stamp
+  matches the current search, so nothing needs clearing before a new plan.
+*/
+public abstract class AbstractGridPlanner implements GridPlanner {
+  // The cost of the best known path to each square
+  protected int[] g = new int[0];
+  // The square each square was reached from
+  protected int[] parent = new int[0];
+  // The search in which each square was last reached
+  protected int[] reached = new int[0];
+  // The search in which each square was expanded
+  protected int[] closed = new int[0];
+  // The number of the current search
+  protected int search;
+  // The open list, with the priority in the high bits and square in the low
+  protected final LongMinHeap open = new LongMinHeap();
+  // The grid being searched and its dimensions
+  protected Grid grid;
+  protected int width;
+  protected int height;
+  // The goal square and its coordinates
+  protected int goal;
+  protected int goalX;
+  protected int goalY;
+  // The number of squares expanded by the last plan
+  protected long expansions;
+
+  public int[] plan(Grid grid, int startX, int startY, int goalX, int goalY) {
+    begin(grid, goalX, goalY);
+    if (!passable(startX, startY) || !passable(goalX, goalY)) {
+      return null;
+    }
+    return search(startY * width + startX);
+  }
+
+  // This method searches from the start square to the goal and returns
+  // the path found or null if there isn't one
+  protected abstract int[] search(int start);
+
+  public long getExpansions() {
+    return expansions;
+  }
+
+  // This method prepares the arrays for a new search of the grid
+  protected void begin(Grid grid, int goalX, int goalY) {
+    this.grid = grid;
+    this.width = grid.getWidth();
+    this.height = grid.getHeight();
+    this.goalX = goalX;
+    this.goalY = goalY;
+    this.goal = goalY * width + goalX;
+    this.expansions = 0;
+
+    int cells = width * height;
+    if (g.length < cells) {
+      g = new int[cells];
+      parent = new int[cells];
+      reached = new int[cells];
+      closed = new int[cells];
+      search = 0;
+    }
+    // Start the stamps again rather than let them wrap around
+    if (search == Integer.MAX_VALUE) {
+      Arrays.fill(reached, 0);
+      Arrays.fill(closed, 0);
+      search = 0;
+    }
+    search++;
+    open.clear();
+  }
+
+  // This method returns whether the square is inside the grid and
+  // isn't a wall
+  protected boolean passable(int x, int y) {
+    return x >= 0 && y >= 0 && x < width && y < height && grid.isPassable(x, y);
+  }
+
+  // This method returns an estimate of the cost from the square to the goal
+  // that never overestimates, the Manhattan distance by default
+  protected int heuristic(int square) {
+    return Math.abs(square % width - goalX) + Math.abs(square / width - goalY);
+  }
+
+  // This method records a path to the square with the given cost and adds
+  // it to the open list if it is better than any path found before
+  protected void relax(int square, int from, int cost) {
+    if (closed[square] == search) {
+      return;
+    }
+    if (reached[square] != search || cost < g[square]) {
+      reached[square] = search;
+      g[square] = cost;
+      parent[square] = from;
+      open.add(((long) (cost + heuristic(square)) << 32) | square);
+    }
+  }
+
+  // This method returns the squares from the start to the given square by
+  // following the parents back, filling in any straight runs between them
+  protected int[] reconstruct(int square) {
+    int[] path = new int[g[square] + 1];
+    int i = path.length - 1;
+    path[i] = square;
+    while (parent[square] != -1) {
+      int from = parent[square];
+      // Step back one square at a time towards the parent
+      int step = (from / width == square / width)
+        ? Integer.signum(from - square)
+        : Integer.signum(from - square) * width;
+      for (int s = square + step; s != from; s += step) {
+        path[--i] = s;
+      }
+      path[--i] = from;
+      square = from;
+    }
+    return path;
+  }
+}
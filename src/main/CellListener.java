@@ -0,0 +1,10 @@
+/*
+  This interface is implemented by anything that needs to know when a
+  square of an ObservableMaze changes, such as a DistanceField that repairs
+  itself or a controller following a path through the square.
+*/
+public interface CellListener {
+  // This method is called after the square at the given coordinates has
+  // changed from the old type to the new type
+  void cellChanged(int x, int y, int oldType, int newType);
+}
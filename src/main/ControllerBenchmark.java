@@ -0,0 +1,83 @@
+import uk.ac.warwick.dcs.maze.logic.*;
+import uk.ac.warwick.dcs.maze.generators.PrimGenerator;
+import uk.ac.warwick.dcs.maze.generators.LoopyGenerator;
+
+/*
+  This class runs each of the controllers on a number of mazes from the
+  primGenerator and the loopyGenerator and prints how often they reach the
+  target, how many steps they take and how long they take. Controllers that
+  haven't reached the target within the time limit are stopped and counted
+  as failures, since the HomingController can loop forever.
+*/
+public class ControllerBenchmark {
+  // The number of mazes each controller is run on
+  private static final int MAZES = 20;
+  // The time (in ms) a controller is given to reach the target
+  private static final long TIME_LIMIT = 2000;
+
+  // do not allow this class to be instantiated
+  private ControllerBenchmark() {}
+
+  // the main entry point for the benchmark
+  public static void main(String args[]) throws InterruptedException {
+    System.out.printf("%-20s %-6s %8s %12s %10s%n",
+      "controller", "maze", "finished", "mean steps", "mean ms");
+
+    for (int g = 0; g < 2; g++) {
+      String generator = (g == 0) ? "prim" : "loopy";
+      for (int c = 0; c < 3; c++) {
+        int finished = 0;
+        long steps = 0;
+        long nanos = 0;
+        String name = null;
+
+        for (int i = 0; i < MAZES; i++) {
+          Maze maze = (g == 0)
+            ? (new PrimGenerator()).generateMaze()
+            : (new LoopyGenerator()).generateMaze();
+          IRobotController controller = createController(c);
+          name = controller.getClass().getSimpleName();
+
+          // Initialise the robot
+          RobotImpl robot = new RobotImpl();
+          robot.setMaze(maze);
+          controller.setRobot(robot);
+
+          // Run the controller on its own thread so that it can be
+          // stopped if it takes too long
+          Thread runner = new Thread(controller::start);
+          long begin = System.nanoTime();
+          runner.start();
+          runner.join(TIME_LIMIT);
+          long elapsed = System.nanoTime() - begin;
+          controller.reset();
+          runner.join();
+
+          if (robot.getLocation().equals(robot.getTargetLocation())) {
+            finished++;
+            steps += robot.getSteps();
+            nanos += elapsed;
+          }
+        }
+
+        System.out.printf("%-20s %-6s %5d/%-2d %12.1f %10.3f%n",
+          name, generator, finished, MAZES,
+          finished == 0 ? 0.0 : (double) steps / finished,
+          finished == 0 ? 0.0 : nanos / 1e6 / finished);
+      }
+    }
+  }
+
+  // This method returns a new instance of the controller with the
+  // given index
+  private static IRobotController createController(int index) {
+    switch (index) {
+      case 0:
+        return new RandomController();
+      case 1:
+        return new HomingController();
+      default:
+        return new PledgeController();
+    }
+  }
+}
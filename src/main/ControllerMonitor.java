@@ -0,0 +1,213 @@
+import uk.ac.warwick.dcs.maze.logic.IRobotController;
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+  This class shows the progress of a running controller over JMX, so that
+  a long run in the GUI can be watched from jconsole instead of looking
+  hung. The controller calls update after each move. Until the monitor is
+  registered nothing can read it, so update only keeps the best distance
+  in a plain field and counts the call. Once registered it also makes
+  lazySet writes to atomics, and never takes a lock. Everything else,
+  including working out the steps per second, is done when the console
+  reads the attributes.
+
+  Each monitor is registered with the platform MBean server as
+  cs118:type=Controller,name=<class>,id=<n> while the controller runs.
+  Registering takes far longer than a move, so it waits until the run has
+  lasted a second, unless the controller has a delay and so is being
+  watched in the GUI. Short runs, such as those made by the benchmarks,
+  are never registered at all. If the monitor can't be registered the
+  controller runs just the same, unwatched.
+*/
+public class ControllerMonitor implements ControllerMonitorMBean {
+  // The length of the window the steps per second are measured over
+  private static final long WINDOW_NANOS = 5000000000L;
+  // The number of readings kept for the window
+  private static final int READINGS = 32;
+  // How long a run without a delay lasts before it is registered, and how
+  // many moves there are between checks of the time
+  private static final long REGISTER_AFTER_NANOS = 1000000000L;
+  private static final int CHECK_EVERY = 256;
+  // The number given to the next monitor
+  private static final AtomicInteger ids = new AtomicInteger();
+
+  // The controller being watched
+  private final IRobotController controller;
+  // The name the monitor is registered under, or null if it isn't
+  private ObjectName name;
+  // A flag to indicate whether the monitor is still to be registered
+  private boolean waiting;
+  // The number of updates made
+  private int updates;
+  // The robot's location packed as x in the high bits and y in the low
+  private final AtomicLong position = new AtomicLong();
+  // The number of steps taken so far
+  private final AtomicLong steps = new AtomicLong();
+  // The best distance to the target so far, as published, as kept by the
+  // controller's thread and as it was when last published
+  private final AtomicInteger bestDistance = new AtomicInteger(Integer.MAX_VALUE);
+  private int best = Integer.MAX_VALUE;
+  private int publishedBest = Integer.MAX_VALUE;
+  // What the controller is doing, as published and as last given by
+  // the controller's thread
+  private final AtomicReference<String> mode = new AtomicReference<String>("starting");
+  private String lastMode;
+  // When the run started
+  private final long started = System.nanoTime();
+  // The times and step counts read by the console, oldest first from
+  // the next one to be overwritten
+  private final long[] readingTimes = new long[READINGS];
+  private final long[] readingSteps = new long[READINGS];
+  private int readings;
+
+  public ControllerMonitor(IRobotController controller) {
+    this.controller = controller;
+  }
+
+  // This method returns a monitor for the controller that registers
+  // itself with the platform MBean server once the run has gone on long
+  // enough to be worth watching
+  public static ControllerMonitor watch(IRobotController controller) {
+    ControllerMonitor monitor = new ControllerMonitor(controller);
+    monitor.waiting = true;
+    if (controller.getDelay() > 0) {
+      monitor.register();
+    }
+    return monitor;
+  }
+
+  // This method registers the monitor with the platform MBean server
+  public void register() {
+    waiting = false;
+    try {
+      ObjectName name = new ObjectName("cs118:type=Controller,name="
+        + controller.getClass().getSimpleName() + ",id=" + ids.incrementAndGet());
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+      this.name = name;
+    } catch (JMException e) {
+      // Run without being watched
+    }
+  }
+
+  // This method removes the monitor from the MBean server once the
+  // controller has finished
+  public void unregister() {
+    waiting = false;
+    if (name == null) {
+      return;
+    }
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.unregisterMBean(name);
+    } catch (JMException e) {
+      // It has already gone
+    }
+    name = null;
+  }
+
+  // This method returns the name the monitor is registered under, or null
+  public ObjectName getName() {
+    return name;
+  }
+
+  // This method publishes the robot's progress and the controller's mode
+  // if the monitor is registered, and must only be called from the thread
+  // running the controller. The controller passes in the location and
+  // target it already has, so that watching doesn't ask the robot for them
+  // again.
+  public void update(Point location, Point target, long steps, String mode) {
+    int distance = Math.abs(location.x - target.x) + Math.abs(location.y - target.y);
+    if (distance < best) {
+      best = distance;
+    }
+    if (name == null) {
+      // Only look at the clock every so often while waiting to register
+      if (!waiting || ++updates % CHECK_EVERY != 0
+          || System.nanoTime() - started < REGISTER_AFTER_NANOS) {
+        return;
+      }
+      register();
+      if (name == null) {
+        return;
+      }
+    }
+
+    position.lazySet(((long) location.x << 32) | (location.y & 0xFFFFFFFFL));
+    this.steps.lazySet(steps);
+    if (best != publishedBest) {
+      publishedBest = best;
+      bestDistance.lazySet(best);
+    }
+    // The mode is one of a few constants, so only publish it when it changes
+    if (mode != lastMode) {
+      lastMode = mode;
+      this.mode.lazySet(mode);
+    }
+  }
+
+  public String getController() {
+    return controller.getClass().getSimpleName();
+  }
+
+  public String getPosition() {
+    long packed = position.get();
+    return (int) (packed >> 32) + "," + (int) packed;
+  }
+
+  public long getSteps() {
+    return steps.get();
+  }
+
+  public int getBestDistance() {
+    return bestDistance.get();
+  }
+
+  // This method records the step count now and measures the rate since
+  // the latest reading from before the window, or the oldest reading kept,
+  // or the start of the run if there are no readings yet
+  public synchronized double getStepsPerSecond() {
+    long now = System.nanoTime();
+    long count = steps.get();
+    long fromTime = started;
+    long fromSteps = 0;
+    for (int i = 0; i < Math.min(readings, READINGS); i++) {
+      // Stop at the first reading from before the window
+      int index = (readings - 1 - i) % READINGS;
+      fromTime = readingTimes[index];
+      fromSteps = readingSteps[index];
+      if (now - fromTime > WINDOW_NANOS) {
+        break;
+      }
+    }
+    readingTimes[readings % READINGS] = now;
+    readingSteps[readings % READINGS] = count;
+    readings++;
+    if (now == fromTime) {
+      return 0;
+    }
+    return (count - fromSteps) / ((now - fromTime) / 1e9);
+  }
+
+  public String getMode() {
+    return mode.get();
+  }
+
+  public int getDelay() {
+    return controller.getDelay();
+  }
+
+  public void setDelay(int millis) {
+    controller.setDelay(millis);
+  }
+
+  public void reset() {
+    controller.reset();
+  }
+}
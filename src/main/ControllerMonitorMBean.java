@@ -0,0 +1,34 @@
+/*
+  This interface is what a ControllerMonitor shows in a JMX console such as
+  jconsole. The getters appear as attributes of the running controller and
+  reset appears as an operation.
+*/
+public interface ControllerMonitorMBean {
+  // This method returns the name of the controller's class
+  String getController();
+
+  // This method returns the robot's location as "x,y"
+  String getPosition();
+
+  // This method returns the number of steps taken so far
+  long getSteps();
+
+  // This method returns the smallest distance to the target, ignoring
+  // walls, that the robot has been at so far
+  int getBestDistance();
+
+  // This method returns the steps per second over the last few seconds
+  double getStepsPerSecond();
+
+  // This method returns what the controller is currently doing
+  String getMode();
+
+  // gets the controller's delay
+  int getDelay();
+
+  // sets the controller's delay
+  void setDelay(int millis);
+
+  // stops the controller
+  void reset();
+}
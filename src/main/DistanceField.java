@@ -0,0 +1,289 @@
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import java.util.Arrays;
+
+/*
+  This class holds the length of the shortest path from every square of a
+  grid to a target square. It is built with one breadth first search, and
+  as a CellListener it repairs itself when a square changes instead of
+  searching the whole grid again, so the work done only depends on how many
+  distances the change affects.
+
+  When a wall is removed the distances can only get shorter, so the new
+  passage is given the best distance of its neighbours and the shorter
+  distances spread out from it. When a wall is added, a square whose
+  distance came through the new wall keeps it only if it has a neighbour one
+  square closer to the target that doesn't. Working outwards in order of
+  distance finds every square left without one, and those squares then get
+  new distances from the squares around them that were unaffected.
+
+  The field must be told about every change to the grid, on the thread that
+  uses it, or its distances will be wrong.
+*/
+public class DistanceField implements CellListener {
+  // The distance given to squares that can't reach the target
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  // The grid the distances are for and its dimensions
+  private final Grid grid;
+  private final int width;
+  private final int height;
+  // The target square
+  private final int target;
+  // The distance from each square to the target
+  private final int[] distance;
+  // The squares waiting to be looked at and the squares found to be
+  // affected by a new wall, both used as plain arrays with a count
+  private final int[] queue;
+  private final int[] affected;
+  // The repair in which each square was queued or found to be affected
+  private final int[] queued;
+  private final int[] lost;
+  // The number of the current repair
+  private int repair;
+  // The squares waiting to spread their distance, with the distance in
+  // the high bits and the square in the low
+  private final LongMinHeap open = new LongMinHeap();
+  // The number of squares looked at by the last build or repair
+  private long touched;
+
+  public DistanceField(Grid grid, int targetX, int targetY) {
+    this.grid = grid;
+    this.width = grid.getWidth();
+    this.height = grid.getHeight();
+    this.target = targetY * width + targetX;
+    int cells = width * height;
+    this.distance = new int[cells];
+    this.queue = new int[cells];
+    this.affected = new int[cells];
+    this.queued = new int[cells];
+    this.lost = new int[cells];
+    recompute();
+  }
+
+  // This method works out every distance again from scratch
+  public void recompute() {
+    Arrays.fill(distance, UNREACHABLE);
+    touched = 0;
+    if (!passable(target)) {
+      return;
+    }
+    distance[target] = 0;
+    open.clear();
+    open.add(((long) 0 << 32) | target);
+    spread();
+  }
+
+  public void cellChanged(int x, int y, int oldType, int newType) {
+    boolean wasPassable = oldType != Maze.WALL;
+    boolean isPassable = newType != Maze.WALL;
+    if (wasPassable == isPassable) {
+      touched = 0;
+      return;
+    }
+    int square = y * width + x;
+    if (square == target) {
+      // Every distance depends on the target
+      recompute();
+    } else if (isPassable) {
+      wallRemoved(square);
+    } else {
+      wallAdded(square);
+    }
+  }
+
+  // This method gives the new passage the best distance of its neighbours
+  // and spreads any shorter distances out from it
+  private void wallRemoved(int square) {
+    touched = 1;
+    int best = bestNeighbour(square);
+    if (best == UNREACHABLE) {
+      return;
+    }
+    distance[square] = best + 1;
+    open.clear();
+    open.add(((long) distance[square] << 32) | square);
+    spread();
+  }
+
+  // This method finds the squares whose distance came through the new wall
+  // and gives them new distances
+  private void wallAdded(int square) {
+    int old = distance[square];
+    distance[square] = UNREACHABLE;
+    touched = 1;
+    if (old == UNREACHABLE) {
+      return;
+    }
+    if (repair == Integer.MAX_VALUE) {
+      Arrays.fill(queued, 0);
+      Arrays.fill(lost, 0);
+      repair = 0;
+    }
+    repair++;
+
+    // Look at the squares one further from the target than the wall in
+    // order of distance, so a square's closer neighbours have always been
+    // decided before it is
+    int head = 0;
+    int tail = queueFurther(square, old, 0);
+    int count = 0;
+    while (head < tail) {
+      int u = queue[head++];
+      touched++;
+      if (!supported(u)) {
+        lost[u] = repair;
+        affected[count++] = u;
+        tail = queueFurther(u, distance[u], tail);
+      }
+    }
+
+    // Forget the affected distances, then start each affected square from
+    // the best of its unaffected neighbours and spread from there
+    for (int i = 0; i < count; i++) {
+      distance[affected[i]] = UNREACHABLE;
+    }
+    open.clear();
+    for (int i = 0; i < count; i++) {
+      int u = affected[i];
+      int best = bestNeighbour(u);
+      if (best != UNREACHABLE) {
+        distance[u] = best + 1;
+        open.add(((long) distance[u] << 32) | u);
+      }
+    }
+    spread();
+  }
+
+  // This method queues the neighbours of the square that are one square
+  // further from the target than the given distance and returns the new
+  // end of the queue
+  private int queueFurther(int square, int d, int tail) {
+    int x = square % width;
+    int y = square / width;
+    if (y > 0) {
+      tail = queueIf(square - width, d + 1, tail);
+    }
+    if (x < width - 1) {
+      tail = queueIf(square + 1, d + 1, tail);
+    }
+    if (y < height - 1) {
+      tail = queueIf(square + width, d + 1, tail);
+    }
+    if (x > 0) {
+      tail = queueIf(square - 1, d + 1, tail);
+    }
+    return tail;
+  }
+
+  // This method queues the square if it has the given distance and hasn't
+  // been queued already in this repair
+  private int queueIf(int square, int d, int tail) {
+    if (distance[square] == d && queued[square] != repair) {
+      queued[square] = repair;
+      queue[tail++] = square;
+    }
+    return tail;
+  }
+
+  // This method returns whether the square still has a neighbour one
+  // square closer to the target that hasn't been affected
+  private boolean supported(int square) {
+    int x = square % width;
+    int y = square / width;
+    int d = distance[square] - 1;
+    return (y > 0 && keeps(square - width, d))
+      || (x < width - 1 && keeps(square + 1, d))
+      || (y < height - 1 && keeps(square + width, d))
+      || (x > 0 && keeps(square - 1, d));
+  }
+
+  // This method returns whether the square has the given distance and
+  // hasn't been affected
+  private boolean keeps(int square, int d) {
+    return distance[square] == d && lost[square] != repair;
+  }
+
+  // This method returns the smallest distance of the square's neighbours
+  private int bestNeighbour(int square) {
+    int x = square % width;
+    int y = square / width;
+    int best = UNREACHABLE;
+    if (y > 0) {
+      best = Math.min(best, distance[square - width]);
+    }
+    if (x < width - 1) {
+      best = Math.min(best, distance[square + 1]);
+    }
+    if (y < height - 1) {
+      best = Math.min(best, distance[square + width]);
+    }
+    if (x > 0) {
+      best = Math.min(best, distance[square - 1]);
+    }
+    return best;
+  }
+
+  // This method takes squares off the open list in order of distance and
+  // gives their neighbours shorter distances through them where it can
+  private void spread() {
+    while (!open.isEmpty()) {
+      long entry = open.poll();
+      int square = (int) entry;
+      int d = (int) (entry >>> 32);
+      if (d != distance[square]) {
+        continue;
+      }
+      touched++;
+      int x = square % width;
+      int y = square / width;
+      if (y > 0) {
+        relax(square - width, d + 1);
+      }
+      if (x < width - 1) {
+        relax(square + 1, d + 1);
+      }
+      if (y < height - 1) {
+        relax(square + width, d + 1);
+      }
+      if (x > 0) {
+        relax(square - 1, d + 1);
+      }
+    }
+  }
+
+  // This method gives the square the distance if it is a passage and the
+  // distance is shorter than the one it has
+  private void relax(int square, int d) {
+    if (d < distance[square] && passable(square)) {
+      distance[square] = d;
+      open.add(((long) d << 32) | square);
+    }
+  }
+
+  // This method returns whether the square isn't a wall
+  private boolean passable(int square) {
+    return grid.isPassable(square % width, square / width);
+  }
+
+  // This method returns the distance from the square at the given
+  // coordinates to the target, or UNREACHABLE
+  public int distance(int x, int y) {
+    return distance[y * width + x];
+  }
+
+  // This method returns the target square
+  public int getTarget() {
+    return target;
+  }
+
+  // This method returns the grid the distances are for
+  public Grid getGrid() {
+    return grid;
+  }
+
+  // This method returns the number of squares looked at by the last
+  // build or repair
+  public long getTouched() {
+    return touched;
+  }
+}
@@ -0,0 +1,269 @@
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+  This class generates a maze in the same style as the SeededMazeGenerator's
+  Prim mazes, joining every room with exactly one path, but makes it one row
+  at a time using Eller's algorithm. It only ever remembers the current row
+  of rooms, so a maze can be written straight to a corpus file without being
+  held in memory and can be far bigger than the heap.
+
+  Each room in the current row belongs to a set, and rooms in the same set
+  are already joined by some path above. Neighbouring rooms in different
+  sets are joined at random, and then every set sends at least one passage
+  down to the next row. The rooms below that no passage reaches start new
+  sets of their own. In the last row every neighbouring pair in different
+  sets is joined, which leaves one set holding every room.
+*/
+public class EllerGenerator {
+  // The number of columns and rows of squares in the maze
+  private final int columns;
+  private final int rows;
+  // The number of rooms in each row
+  private final int roomColumns;
+  // The random numbers the maze is made from
+  private final SplittableRandom random;
+  // Random bits drawn 64 at a time, and how many of them are left
+  private long coins;
+  private int coinsLeft;
+  // The set each room in the current row belongs to, and the parent of
+  // each set in a union-find over the sets of the current row
+  private final int[] set;
+  private final int[] parent;
+  // The number of rooms in each set not yet looked at, and whether each
+  // set has sent a passage down yet
+  private final int[] remaining;
+  private final boolean[] down;
+  // The rows of squares handed out by nextRow
+  private final boolean[] roomRow;
+  private final boolean[] wallRow;
+  // The next row of squares to hand out
+  private int row;
+
+  // This constructor sets up a maze with the given number of columns and
+  // rows of squares, which must both be odd and at least 3
+  public EllerGenerator(int columns, int rows, long seed) {
+    if (columns < 3 || rows < 3 || columns % 2 == 0 || rows % 2 == 0) {
+      throw new IllegalArgumentException("columns and rows must be odd and at least 3");
+    }
+    this.columns = columns;
+    this.rows = rows;
+    this.roomColumns = columns / 2;
+    this.random = new SplittableRandom(seed);
+    this.set = new int[roomColumns];
+    this.parent = new int[roomColumns];
+    this.remaining = new int[roomColumns];
+    this.down = new boolean[roomColumns];
+    this.roomRow = new boolean[columns];
+    this.wallRow = new boolean[columns];
+
+    // Every room in the first row starts in a set of its own
+    for (int x = 0; x < roomColumns; x++) {
+      set[x] = x;
+    }
+  }
+
+  // This method returns the number of columns of squares
+  public int getColumns() {
+    return columns;
+  }
+
+  // This method returns the number of rows of squares
+  public int getRows() {
+    return rows;
+  }
+
+  // This method returns the start of the maze, in the top left room
+  public Point getStart() {
+    return new Point(1, 1);
+  }
+
+  // This method returns the finish of the maze, in the bottom right room
+  public Point getFinish() {
+    return new Point(columns - 2, rows - 2);
+  }
+
+  // This method returns whether there are any rows left to hand out
+  public boolean hasNextRow() {
+    return row < rows;
+  }
+
+  // This method returns the next row of squares from the top, where true
+  // means the square is a passage. The array is reused for later rows so
+  // it must be used before asking for the row after next.
+  public boolean[] nextRow() {
+    if (row >= rows) {
+      throw new IllegalStateException("every row has been generated");
+    }
+    int y = row++;
+    if (y == 0 || y == rows - 1) {
+      // The top and bottom edges are solid wall
+      Arrays.fill(wallRow, false);
+      return wallRow;
+    }
+    if (y % 2 == 1) {
+      joinAcross(y == rows - 2);
+      return roomRow;
+    }
+    joinDown();
+    return wallRow;
+  }
+
+  // This method joins neighbouring rooms in different sets at random, or
+  // all of them in the last row, and fills in the row of rooms
+  private void joinAcross(boolean last) {
+    for (int x = 0; x < roomColumns; x++) {
+      parent[x] = x;
+      roomRow[2 * x + 1] = true;
+    }
+    int left = set[0];
+    for (int x = 0; x < roomColumns - 1; x++) {
+      // The left room's set is already known from the last time round
+      int right = find(set[x + 1]);
+      boolean join = left != right && (last || flip());
+      roomRow[2 * x + 2] = join;
+      if (join) {
+        parent[right] = left;
+      } else {
+        left = right;
+      }
+    }
+
+    // Give every room the set it has ended up in
+    for (int x = 0; x < roomColumns; x++) {
+      set[x] = find(set[x]);
+    }
+  }
+
+  // This method sends passages down from the current row, at least one from
+  // each set, fills in the row of walls below it and works out the sets of
+  // the rooms in the next row
+  private void joinDown() {
+    for (int x = 0; x < roomColumns; x++) {
+      remaining[x] = 0;
+      down[x] = false;
+    }
+    for (int x = 0; x < roomColumns; x++) {
+      remaining[set[x]]++;
+    }
+
+    // Each room sends a passage down at random, except that the last room
+    // of a set always does if none of the others have
+    for (int x = 0; x < roomColumns; x++) {
+      int s = set[x];
+      boolean open = flip() | (--remaining[s] == 0 & !down[s]);
+      down[s] |= open;
+      wallRow[2 * x + 1] = open;
+    }
+
+    // Rooms below a passage stay in the set above and every other room
+    // takes one of the sets no longer in use. The sets are all in use
+    // below a passage now, so down can mark the sets taken.
+    int unused = 0;
+    for (int x = 0; x < roomColumns; x++) {
+      if (!wallRow[2 * x + 1]) {
+        while (down[unused]) {
+          unused++;
+        }
+        down[unused] = true;
+        set[x] = unused;
+      }
+    }
+  }
+
+  // This method returns a random true or false, using up one of the bits
+  // of a random long so that most calls don't need a new random number
+  private boolean flip() {
+    if (coinsLeft == 0) {
+      coins = random.nextLong();
+      coinsLeft = 64;
+    }
+    boolean heads = (coins & 1) != 0;
+    coins >>>= 1;
+    coinsLeft--;
+    return heads;
+  }
+
+  // This method returns the set the given set has been merged into
+  private int find(int s) {
+    while (parent[s] != s) {
+      parent[s] = parent[parent[s]];
+      s = parent[s];
+    }
+    return s;
+  }
+
+  // This method writes the maze to the corpus as the given kind and seed,
+  // a row at a time
+  public void write(MazeCorpusWriter writer, int kind, long seed) throws IOException {
+    checkUnstarted();
+    writer.beginMaze(kind, seed, columns, rows, getStart(), getFinish());
+    while (hasNextRow()) {
+      writer.writeRow(nextRow());
+    }
+  }
+
+  // This method returns the maze as a Maze, which is only sensible for
+  // mazes small enough to fit in memory
+  public Maze toMaze() {
+    checkUnstarted();
+    Maze maze = new Maze(columns, rows);
+    while (hasNextRow()) {
+      int y = row;
+      boolean[] squares = nextRow();
+      for (int x = 0; x < columns; x++) {
+        maze.setCellType(x, y, squares[x] ? Maze.PASSAGE : Maze.WALL);
+      }
+    }
+    maze.setStart(1, 1);
+    maze.setFinish(columns - 2, rows - 2);
+    return maze;
+  }
+
+  // This method makes sure no rows have been handed out yet
+  private void checkUnstarted() {
+    if (row != 0) {
+      throw new IllegalStateException("rows have already been generated");
+    }
+  }
+
+  // the main entry point, which times generating a maze with the given
+  // number of columns and rows of squares, first without writing it
+  // anywhere and then writing it to a corpus file, and prints rows/sec
+  public static void main(String args[]) throws IOException {
+    int columns = args.length > 0 ? Integer.parseInt(args[0]) : 100001;
+    int rows = args.length > 1 ? Integer.parseInt(args[1]) : 20001;
+    Path path = args.length > 2 ? Paths.get(args[2])
+      : Files.createTempFile("eller-maze", ".bin");
+
+    // Generate the rows without doing anything with them
+    EllerGenerator generator = new EllerGenerator(columns, rows, 118L);
+    long begin = System.nanoTime();
+    while (generator.hasNextRow()) {
+      generator.nextRow();
+    }
+    long elapsed = System.nanoTime() - begin;
+    System.out.printf("generate %dx%d: %.0f ms (%.0f rows/s)%n",
+      columns, rows, elapsed / 1e6, rows / (elapsed / 1e9));
+
+    // Generate the rows and write them to the corpus file
+    generator = new EllerGenerator(columns, rows, 118L);
+    begin = System.nanoTime();
+    try (MazeCorpusWriter writer = new MazeCorpusWriter(path)) {
+      generator.write(writer, SeededMazeGenerator.ELLER, 118L);
+    }
+    elapsed = System.nanoTime() - begin;
+    System.out.printf("write    %dx%d: %.0f ms (%.0f rows/s, %.0f MB/s) to %s%n",
+      columns, rows, elapsed / 1e6, rows / (elapsed / 1e9),
+      Files.size(path) / 1e6 / (elapsed / 1e9), path);
+    if (args.length <= 2) {
+      Files.delete(path);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+import java.io.Closeable;
+
+/*
+  This planner keeps a DistanceField to the goal of its last plan and finds
+  paths by stepping from the start to a neighbour one square closer each
+  time. It listens for changes to an ObservableMaze and has the field
+  repair itself, so planning again after a wall moves only costs as much as
+  the change affected rather than a new search of the whole maze. The field
+  is only built again when the goal changes, or on every plan for grids of
+  any other maze, as it can't tell when they change. Changes are only
+  passed on to a field built for the maze being listened to. Once the
+  planner is closed it stops listening and builds the field on every plan.
+*/
+public class FieldPlanner implements GridPlanner, CellListener, Closeable {
+  // The maze the planner listens to
+  private final ObservableMaze maze;
+  // The field to the goal of the last plan, or null before the first
+  private DistanceField field;
+  // A flag to indicate whether the field is for the maze listened to
+  private boolean observed;
+  // The squares looked at since the last plan
+  private long touched;
+  // The number of squares looked at by the last plan
+  private long expansions;
+
+  public FieldPlanner(ObservableMaze maze) {
+    this.maze = maze;
+    maze.addCellListener(this);
+  }
+
+  public int[] plan(Grid grid, int startX, int startY, int goalX, int goalY) {
+    int goal = goalY * grid.getWidth() + goalX;
+    boolean view = grid instanceof MazeGrid && ((MazeGrid) grid).getMaze() == maze;
+    if (field == null || !observed || field.getGrid() != grid || field.getTarget() != goal) {
+      // Stop repairing the old field before it is replaced
+      observed = false;
+      field = new DistanceField(grid, goalX, goalY);
+      touched += field.getTouched();
+      observed = view;
+    }
+    expansions = touched;
+    touched = 0;
+
+    int d = field.distance(startX, startY);
+    if (d == DistanceField.UNREACHABLE) {
+      return null;
+    }
+    // Walk downhill from the start to the goal
+    int width = grid.getWidth();
+    int height = grid.getHeight();
+    int[] path = new int[d + 1];
+    int x = startX;
+    int y = startY;
+    path[0] = y * width + x;
+    for (int i = 1; i <= d; i++) {
+      int closer = d - i;
+      if (y > 0 && field.distance(x, y - 1) == closer) {
+        y--;
+      } else if (x < width - 1 && field.distance(x + 1, y) == closer) {
+        x++;
+      } else if (y < height - 1 && field.distance(x, y + 1) == closer) {
+        y++;
+      } else {
+        x--;
+      }
+      path[i] = y * width + x;
+    }
+    return path;
+  }
+
+  public void cellChanged(int x, int y, int oldType, int newType) {
+    if (observed) {
+      field.cellChanged(x, y, oldType, newType);
+      touched += field.getTouched();
+    }
+  }
+
+  // This method stops the planner listening to the maze, after which its
+  // field can't be kept up to date
+  public void close() {
+    maze.removeCellListener(this);
+    observed = false;
+  }
+
+  // This method returns the number of squares looked at to build or
+  // repair the field since the plan before the last one
+  public long getExpansions() {
+    return expansions;
+  }
+}
@@ -0,0 +1,16 @@
+/*
+  This interface is a read-only view of the squares of a maze that the
+  planners search. The planners treat squares outside the grid as walls
+  and only ask about squares inside it.
+*/
+public interface Grid {
+  // This method returns the number of columns in the grid
+  int getWidth();
+
+  // This method returns the number of rows in the grid
+  int getHeight();
+
+  // This method returns whether the robot can move into the square
+  // at the given coordinates
+  boolean isPassable(int x, int y);
+}
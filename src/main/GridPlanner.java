@@ -0,0 +1,12 @@
+/*
+  This interface is implemented by the path planners used by the
+  PlannerController. Squares are identified by their index y * width + x.
+*/
+public interface GridPlanner {
+  // This method returns the squares on a shortest path from the start to
+  // the goal, including both ends, or null if the goal can't be reached
+  int[] plan(Grid grid, int startX, int startY, int goalX, int goalY);
+
+  // This method returns the number of squares expanded by the last plan
+  long getExpansions();
+}
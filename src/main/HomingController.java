@@ -11,36 +11,71 @@ import java.awt.Point;
   in the testing of this controller.
 */
 
-public class HomingController implements IRobotController {
+public class HomingController implements IRobotController, StepController {
   // The robot in the maze
   private IRobot robot;
   // A flag to indicate whether we are looking for a path
-  private boolean active = false;
+  private volatile boolean active = false;
   // A value (in ms) indicating how long we should wait
   // between moves
-  private int delay;
+  private volatile int delay;
+  // A flag to indicate whether the robot is on the target
+  private boolean arrived;
+  // The robot's location and target after the last move
+  private Point location;
+  private Point target;
 
   // This method is called when the "start" button is clicked
   // in the user interface
   public void start() {
     // Set flag to start looking for a path
     this.active = true;
-    // Loop while we haven't found the exit and the agent
-    // has not been interrupted
-    while(!robot.getLocation().equals(robot.getTargetLocation()) && active) {
-      // Set the heading of the of the robot in the direction
-      // of the target without pointing towards a wall
-      robot.setHeading(determineHeading());
-      // Face in the direction of the new heading
-      robot.face(IRobot.AHEAD);
-      // Move one step foward
-      robot.advance();
+    begin();
+    // Let the run be watched over JMX while it lasts
+    ControllerMonitor monitor = ControllerMonitor.watch(this);
+    try {
+      // Loop while we haven't found the exit and the agent
+      // has not been interrupted
+      boolean running = !arrived;
+      while(running && active) {
+        // Move one step towards the target
+        running = step();
+        monitor.update(location, target, robot.getSteps(), "homing");
 
-      // Wait for a while if we are supposed to
-      if (delay > 0) {
-        robot.sleep(delay);
+        // Wait for a while if we are supposed to
+        if (delay > 0) {
+          robot.sleep(delay);
+        }
       }
+    } finally {
+      monitor.unregister();
+    }
+  }
+
+  // This method notes whether the robot starts on the target
+  public void begin() {
+    location = robot.getLocation();
+    target = robot.getTargetLocation();
+    arrived = location.equals(target);
+  }
+
+  // This method moves the robot one step towards the target and returns
+  // whether it still has to reach the target
+  public boolean step() {
+    if (arrived) {
+      return false;
     }
+    // Set the heading of the of the robot in the direction
+    // of the target without pointing towards a wall
+    robot.setHeading(determineHeading());
+    // Face in the direction of the new heading
+    robot.face(IRobot.AHEAD);
+    // Move one step foward
+    robot.advance();
+    location = robot.getLocation();
+    target = robot.getTargetLocation();
+    arrived = location.equals(target);
+    return !arrived;
   }
 
   // This method returns 1 if the target is north of the
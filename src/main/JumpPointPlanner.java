@@ -0,0 +1,109 @@
+/*
+  This planner uses jump point search adapted to robots that can only move
+  north, east, south and west. Instead of adding every neighbour to the open
+  list it scans along straight lines and only stops at the goal or at
+  squares where a wall ends beside the line (a forced neighbour), since any
+  other square on the line can be reached just as cheaply some other way.
+  Horizontal scans stop at those squares, and vertical scans also stop at
+  any square a horizontal scan from it would stop at. On open areas this
+  skips over the large numbers of equally good paths that plain A* expands
+  one square at a time while still finding a shortest path.
+*/
+public class JumpPointPlanner extends AbstractGridPlanner {
+  protected int[] search(int start) {
+    reached[start] = search;
+    g[start] = 0;
+    parent[start] = -1;
+    open.add(((long) heuristic(start) << 32) | start);
+
+    while (!open.isEmpty()) {
+      int square = (int) open.poll();
+      // Skip squares that were added again with a better cost
+      if (closed[square] == search) {
+        continue;
+      }
+      closed[square] = search;
+      expansions++;
+      if (square == goal) {
+        return reconstruct(square);
+      }
+
+      int x = square % width;
+      int y = square / width;
+      if (parent[square] == -1) {
+        // The start square scans in all four directions
+        scan(square, x, y, 0, -1);
+        scan(square, x, y, 1, 0);
+        scan(square, x, y, 0, 1);
+        scan(square, x, y, -1, 0);
+      } else {
+        // Otherwise scan onwards and to either side of the direction
+        // the square was reached in
+        int from = parent[square];
+        int dx = Integer.signum(x - from % width);
+        int dy = Integer.signum(y - from / width);
+        scan(square, x, y, dx, dy);
+        scan(square, x, y, dy, dx);
+        scan(square, x, y, -dy, -dx);
+      }
+    }
+    return null;
+  }
+
+  // This method jumps from the square in the given direction and adds
+  // the jump point it stops at to the open list
+  private void scan(int square, int x, int y, int dx, int dy) {
+    int jumpPoint = jump(x + dx, y + dy, dx, dy);
+    if (jumpPoint != -1) {
+      int distance = Math.abs(jumpPoint % width - x) + Math.abs(jumpPoint / width - y);
+      relax(jumpPoint, square, g[square] + distance);
+    }
+  }
+
+  // This method moves along a straight line from the given square and
+  // returns the first jump point found, or -1 if it reaches a wall first
+  private int jump(int x, int y, int dx, int dy) {
+    while (passable(x, y)) {
+      if (x == goalX && y == goalY) {
+        return y * width + x;
+      }
+      if (dx != 0) {
+        if (forcedHorizontal(x, y, dx)) {
+          return y * width + x;
+        }
+      } else {
+        // A wall ending to the east or west of a vertical line
+        if ((passable(x - 1, y) && !passable(x - 1, y - dy))
+            || (passable(x + 1, y) && !passable(x + 1, y - dy))) {
+          return y * width + x;
+        }
+        // A jump point along either horizontal line from here
+        if (reachesJumpPoint(x + 1, y, 1) || reachesJumpPoint(x - 1, y, -1)) {
+          return y * width + x;
+        }
+      }
+      x += dx;
+      y += dy;
+    }
+    return -1;
+  }
+
+  // This method returns whether a horizontal line from the given square
+  // reaches the goal or a forced neighbour before it reaches a wall
+  private boolean reachesJumpPoint(int x, int y, int dx) {
+    while (passable(x, y)) {
+      if ((x == goalX && y == goalY) || forcedHorizontal(x, y, dx)) {
+        return true;
+      }
+      x += dx;
+    }
+    return false;
+  }
+
+  // This method returns whether a wall ends to the north or south of
+  // a square on a horizontal line
+  private boolean forcedHorizontal(int x, int y, int dx) {
+    return (passable(x, y - 1) && !passable(x - dx, y - 1))
+      || (passable(x, y + 1) && !passable(x - dx, y + 1));
+  }
+}
@@ -0,0 +1,49 @@
+/*
+  This planner is an A* search that uses the ALT heuristic from a
+  LandmarkTable instead of only the Manhattan distance. The table costs a
+  breadth first search per landmark to build, so it pays off when many plans
+  are made on the same maze, for example with different targets. Taking the
+  larger of the two bounds keeps the heuristic consistent, so the paths found
+  are still shortest paths.
+*/
+public class LandmarkPlanner extends AStarPlanner {
+  // The distances from the landmarks
+  private final LandmarkTable table;
+  // The distance from each landmark to the goal of the current plan
+  private final int[] goalDistances;
+
+  public LandmarkPlanner(LandmarkTable table) {
+    this.table = table;
+    this.goalDistances = new int[table.getCount()];
+  }
+
+  // This method returns the table the heuristic comes from
+  public LandmarkTable getTable() {
+    return table;
+  }
+
+  protected void begin(Grid grid, int goalX, int goalY) {
+    if (!table.fits(grid)) {
+      throw new IllegalArgumentException("the landmark table is for a different grid");
+    }
+    super.begin(grid, goalX, goalY);
+    // Look up the goal's distances once rather than for every square
+    for (int i = 0; i < goalDistances.length; i++) {
+      goalDistances[i] = table.distance(i, goal);
+    }
+  }
+
+  // This method returns the larger of the Manhattan distance and the
+  // triangle inequality bound from each landmark
+  protected int heuristic(int square) {
+    int bound = super.heuristic(square);
+    for (int i = 0; i < goalDistances.length; i++) {
+      int from = table.distance(i, square);
+      int to = goalDistances[i];
+      if (from >= 0 && to >= 0) {
+        bound = Math.max(bound, Math.abs(to - from));
+      }
+    }
+    return bound;
+  }
+}
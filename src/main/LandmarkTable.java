@@ -0,0 +1,172 @@
+import java.util.Arrays;
+
+/*
+  This class holds the distances along passages from a few landmark squares
+  to every square of a grid, for the ALT (A*, landmarks and the triangle
+  inequality) heuristic used by the LandmarkPlanner. For any landmark L the
+  distance from a square s to the goal t is at least |d(L, t) - d(L, s)|,
+  which in a maze is usually far closer to the truth than the Manhattan
+  distance because it knows about the corridors.
+
+  The landmarks are picked one at a time, each as far as possible from the
+  ones before, so they end up spread out around the edges of the maze where
+  they give the best bounds. The distances are kept as shorts when they fit
+  and ints otherwise, with -1 for squares a landmark can't reach.
+
+  The table is worked out once for a grid and is only right as long as the
+  walls of the grid don't change.
+*/
+public class LandmarkTable {
+  // The dimensions of the grid the table was built for
+  private final int width;
+  private final int height;
+  // The landmark squares
+  private final int[] landmarks;
+  // The distance from each landmark to each square, in shorts when every
+  // distance fits and in ints otherwise, with the other left null
+  private final short[][] shortDistances;
+  private final int[][] intDistances;
+  // How long it took to build the table in nanoseconds
+  private final long preprocessingNanos;
+
+  public LandmarkTable(Grid grid, int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("count must be positive");
+    }
+    long begin = System.nanoTime();
+    this.width = grid.getWidth();
+    this.height = grid.getHeight();
+    int cells = width * height;
+    int[] queue = new int[cells];
+
+    // Start from the square furthest from the first passage, which is at
+    // one end of the longest path through its part of the grid
+    int first = 0;
+    while (first < cells && !grid.isPassable(first % width, first / width)) {
+      first++;
+    }
+    if (first == cells) {
+      throw new IllegalArgumentException("the grid has no passages");
+    }
+    int[] distance = new int[cells];
+    breadthFirst(grid, first, distance, queue);
+    int next = furthest(distance);
+
+    // Each landmark after that is the square furthest from all the
+    // landmarks picked so far
+    int[][] distances = new int[count][];
+    int[] nearest = new int[cells];
+    Arrays.fill(nearest, Integer.MAX_VALUE);
+    landmarks = new int[count];
+    int longest = 0;
+    for (int i = 0; i < count; i++) {
+      landmarks[i] = next;
+      distances[i] = new int[cells];
+      breadthFirst(grid, next, distances[i], queue);
+      for (int square = 0; square < cells; square++) {
+        int d = distances[i][square];
+        longest = Math.max(longest, d);
+        if (d >= 0) {
+          nearest[square] = Math.min(nearest[square], d);
+        } else if (nearest[square] == Integer.MAX_VALUE) {
+          nearest[square] = -1;
+        }
+      }
+      next = furthest(nearest);
+    }
+
+    // Keep the distances as shorts if they all fit, halving the memory
+    if (longest <= Short.MAX_VALUE) {
+      shortDistances = new short[count][cells];
+      for (int i = 0; i < count; i++) {
+        for (int square = 0; square < cells; square++) {
+          shortDistances[i][square] = (short) distances[i][square];
+        }
+      }
+      intDistances = null;
+    } else {
+      shortDistances = null;
+      intDistances = distances;
+    }
+    preprocessingNanos = System.nanoTime() - begin;
+  }
+
+  // This method fills in the distance from the source to every square,
+  // with -1 for walls and squares that can't be reached
+  private void breadthFirst(Grid grid, int source, int[] distance, int[] queue) {
+    Arrays.fill(distance, -1);
+    distance[source] = 0;
+    queue[0] = source;
+    int head = 0;
+    int tail = 1;
+    while (head < tail) {
+      int square = queue[head++];
+      int x = square % width;
+      int y = square / width;
+      int d = distance[square] + 1;
+      if (y > 0 && distance[square - width] < 0 && grid.isPassable(x, y - 1)) {
+        distance[square - width] = d;
+        queue[tail++] = square - width;
+      }
+      if (x < width - 1 && distance[square + 1] < 0 && grid.isPassable(x + 1, y)) {
+        distance[square + 1] = d;
+        queue[tail++] = square + 1;
+      }
+      if (y < height - 1 && distance[square + width] < 0 && grid.isPassable(x, y + 1)) {
+        distance[square + width] = d;
+        queue[tail++] = square + width;
+      }
+      if (x > 0 && distance[square - 1] < 0 && grid.isPassable(x - 1, y)) {
+        distance[square - 1] = d;
+        queue[tail++] = square - 1;
+      }
+    }
+  }
+
+  // This method returns the square with the largest distance
+  private static int furthest(int[] distance) {
+    int best = 0;
+    for (int square = 1; square < distance.length; square++) {
+      if (distance[square] > distance[best]) {
+        best = square;
+      }
+    }
+    return best;
+  }
+
+  // This method returns the number of landmarks
+  public int getCount() {
+    return landmarks.length;
+  }
+
+  // This method returns the square of the given landmark
+  public int getLandmark(int landmark) {
+    return landmarks[landmark];
+  }
+
+  // This method returns the distance from the landmark to the square, or
+  // -1 if the landmark can't reach it
+  public int distance(int landmark, int square) {
+    if (shortDistances != null) {
+      return shortDistances[landmark][square];
+    }
+    return intDistances[landmark][square];
+  }
+
+  // This method returns whether the table was built for a grid of the
+  // given dimensions
+  public boolean fits(Grid grid) {
+    return grid.getWidth() == width && grid.getHeight() == height;
+  }
+
+  // This method returns how long it took to build the table in nanoseconds
+  public long getPreprocessingNanos() {
+    return preprocessingNanos;
+  }
+
+  // This method returns the number of bytes taken by the distances
+  public long getMemoryBytes() {
+    long cells = (long) width * height;
+    return landmarks.length * cells * (shortDistances != null ? 2 : 4);
+  }
+}
@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+/*
+  This class is a binary min-heap of primitive longs. The planners pack the
+  priority of a square into the high bits and its index into the low bits
+  so that no objects are created while searching.
+*/
+public class LongMinHeap {
+  // The heap stored as an implicit binary tree
+  private long[] heap;
+  // The number of values in the heap
+  private int size;
+
+  public LongMinHeap() {
+    this(64);
+  }
+
+  public LongMinHeap(int capacity) {
+    heap = new long[Math.max(capacity, 1)];
+  }
+
+  // This method adds a value to the heap
+  public void add(long value) {
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    // Move the value up until its parent is no larger
+    int i = size++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (heap[parent] <= value) {
+        break;
+      }
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = value;
+  }
+
+  // This method removes and returns the smallest value in the heap
+  public long poll() {
+    if (size == 0) {
+      throw new IllegalStateException("heap is empty");
+    }
+    long top = heap[0];
+    long last = heap[--size];
+    // Move the last value down from the root until both children are larger
+    int i = 0;
+    int half = size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (last <= heap[child]) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = last;
+    return top;
+  }
+
+  // This method returns the smallest value without removing it
+  public long peek() {
+    if (size == 0) {
+      throw new IllegalStateException("heap is empty");
+    }
+    return heap[0];
+  }
+
+  // This method returns the number of values in the heap
+  public int size() {
+    return size;
+  }
+
+  // This method returns whether the heap is empty
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  // This method removes all of the values from the heap
+  public void clear() {
+    size = 0;
+  }
+}
@@ -0,0 +1,153 @@
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import java.awt.Point;
+import java.nio.ByteBuffer;
+
+/*
+  This class is a maze in a corpus file. Its squares are read straight out
+  of the memory mapped file whenever a robot or a planner asks for them, so
+  opening a corpus doesn't copy any mazes and a robot can move in one
+  directly.
+
+  The Maze constructor always makes an array of squares of its own, so it
+  is given the smallest maze it can have, and every method that reads the
+  maze is overridden to read the file instead. Reading a square outside the
+  maze throws an ArrayIndexOutOfBoundsException, the same as Maze does.
+
+  The file is mapped read only. Nothing in this project changes a maze a
+  robot is moving in, but the maze library's classes aren't ours, so a
+  mapped maze can still be changed like any other: the first change copies
+  the squares into an array of its own, and from then on the maze is read
+  from the copy. The file itself is never changed.
+*/
+public class MappedMaze extends Maze implements Grid {
+  // The kind of maze, as given by SeededMazeGenerator
+  private final int kind;
+  // The seed the maze was generated from
+  private final long seed;
+  // The dimensions of the maze
+  private final int width;
+  private final int height;
+  // The start and finish of the maze
+  private Point start;
+  private Point finish;
+  // The squares packed one bit each, row by row, set for passages, split
+  // into chunks of MazeCorpus.CHUNK_BYTES
+  private final ByteBuffer[] bits;
+  // The type of each square row by row once the maze has been changed,
+  // or null while it is read from the file
+  private int[] copy;
+
+  MappedMaze(int kind, long seed, int width, int height, Point start,
+      Point finish, ByteBuffer[] bits) {
+    super(1, 1);
+    this.kind = kind;
+    this.seed = seed;
+    this.width = width;
+    this.height = height;
+    this.start = start;
+    this.finish = finish;
+    this.bits = bits;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public int getCellType(int x, int y) {
+    check(x, y);
+    if (copy != null) {
+      return copy[y * width + x];
+    }
+    return read(x, y) ? PASSAGE : WALL;
+  }
+
+  public boolean isPassable(int x, int y) {
+    check(x, y);
+    if (copy != null) {
+      return copy[y * width + x] != WALL;
+    }
+    return read(x, y);
+  }
+
+  // This method throws an exception if the square is outside the maze,
+  // as it would otherwise be read from the next row or past the end
+  private void check(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new ArrayIndexOutOfBoundsException(
+        "(" + x + "," + y + ") is outside the " + width + "x" + height + " maze");
+    }
+  }
+
+  // This method returns whether the square is a passage in the file
+  private boolean read(int x, int y) {
+    long index = (long) y * width + x;
+    long offset = index >>> 3;
+    ByteBuffer chunk = bits[(int) (offset / MazeCorpus.CHUNK_BYTES)];
+    return (chunk.get((int) (offset % MazeCorpus.CHUNK_BYTES)) & (1 << (index & 7))) != 0;
+  }
+
+  // This method returns the kind of maze
+  public int getKind() {
+    return kind;
+  }
+
+  // This method returns the seed the maze was generated from
+  public long getSeed() {
+    return seed;
+  }
+
+  public Point getStart() {
+    return new Point(start);
+  }
+
+  public Point getFinish() {
+    return new Point(finish);
+  }
+
+  // This method returns whether the maze has been changed and is no
+  // longer read from the file
+  public boolean isCopied() {
+    return copy != null;
+  }
+
+  // The Maze constructor may set the squares, start and finish before the
+  // fields are, and those go to the maze it makes
+  public void setCellType(int x, int y, int type) {
+    if (bits == null) {
+      super.setCellType(x, y, type);
+      return;
+    }
+    check(x, y);
+    if (copy == null) {
+      // Copy the squares out of the file before the first change
+      int[] squares = new int[width * height];
+      for (int j = 0; j < height; j++) {
+        for (int i = 0; i < width; i++) {
+          squares[j * width + i] = read(i, j) ? PASSAGE : WALL;
+        }
+      }
+      copy = squares;
+    }
+    copy[y * width + x] = type;
+  }
+
+  public void setStart(int x, int y) {
+    if (bits == null) {
+      super.setStart(x, y);
+      return;
+    }
+    start = new Point(x, y);
+  }
+
+  public void setFinish(int x, int y) {
+    if (bits == null) {
+      super.setFinish(x, y);
+      return;
+    }
+    finish = new Point(x, y);
+  }
+}
@@ -0,0 +1,176 @@
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/*
+  This class is a corpus of mazes stored in a single binary file, so that
+  benchmarks and tests can use exactly the same mazes every time without
+  generating them. Opening a corpus maps the file into memory and only reads
+  the header of each maze, which makes even large corpora quick to open.
+
+  The file starts with a 16 byte header of the magic number "MZC1", the
+  format version, the number of mazes and a reserved int. Each maze then
+  has a 40 byte header of its kind, width, height, start x and y, finish x
+  and y, a reserved int and the seed it was generated from, followed by its
+  squares packed one bit each row by row (lowest bit first, set for a
+  passage) and padded to a multiple of 8 bytes. All numbers are big endian.
+*/
+public class MazeCorpus implements Closeable {
+  // The magic number at the start of every corpus file
+  public static final int MAGIC = 0x4D5A4331;
+  // The version of the format
+  public static final int VERSION = 1;
+  // The sizes of the headers and where the count of mazes is kept
+  public static final int HEADER_BYTES = 16;
+  public static final int ENTRY_HEADER_BYTES = 40;
+  public static final int COUNT_OFFSET = 8;
+  // Every maze starts on a multiple of this many bytes
+  public static final int ALIGNMENT = 8;
+  // The squares of a maze are mapped in chunks of this many bytes, as a
+  // single buffer can't be bigger than 2GB
+  static final int CHUNK_BYTES = 1 << 30;
+
+  // The file the corpus is read from
+  private final FileChannel channel;
+  // The mazes in the corpus
+  private final List<MappedMaze> mazes;
+
+  private MazeCorpus(FileChannel channel, List<MappedMaze> mazes) {
+    this.channel = channel;
+    this.mazes = Collections.unmodifiableList(mazes);
+  }
+
+  // This method opens the corpus in the given file
+  public static MazeCorpus open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      // Map the whole file at once when it fits in a single buffer, or
+      // each maze on its own otherwise
+      MappedByteBuffer whole = null;
+      if (size <= Integer.MAX_VALUE) {
+        whole = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+
+      ByteBuffer header = read(channel, whole, 0, HEADER_BYTES);
+      if (header.getInt() != MAGIC) {
+        throw new IOException(path + " is not a maze corpus");
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("unsupported corpus version " + version);
+      }
+      int count = header.getInt();
+
+      List<MappedMaze> mazes = new ArrayList<MappedMaze>(count);
+      long offset = HEADER_BYTES;
+      for (int i = 0; i < count; i++) {
+        ByteBuffer entry = read(channel, whole, offset, ENTRY_HEADER_BYTES);
+        int kind = entry.getInt();
+        int width = entry.getInt();
+        int height = entry.getInt();
+        Point start = new Point(entry.getInt(), entry.getInt());
+        Point finish = new Point(entry.getInt(), entry.getInt());
+        entry.getInt();
+        long seed = entry.getLong();
+
+        long bytes = ((long) width * height + 7) / 8;
+        offset += ENTRY_HEADER_BYTES;
+        if (offset + bytes > size) {
+          throw new IOException("maze " + i + " doesn't fit in " + path);
+        }
+        ByteBuffer[] bits = new ByteBuffer[(int) ((bytes + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+        for (int chunk = 0; chunk < bits.length; chunk++) {
+          long from = (long) chunk * CHUNK_BYTES;
+          bits[chunk] = read(channel, whole, offset + from,
+            (int) Math.min(CHUNK_BYTES, bytes - from));
+        }
+        mazes.add(new MappedMaze(kind, seed, width, height, start, finish, bits));
+        offset += (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+      }
+      return new MazeCorpus(channel, mazes);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  // This method returns a buffer over the given bytes of the file, either
+  // as a slice of the whole file or as a mapping of its own
+  private static ByteBuffer read(FileChannel channel, MappedByteBuffer whole,
+      long offset, int length) throws IOException {
+    if (whole == null) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+    ByteBuffer slice = whole.duplicate();
+    slice.position((int) offset);
+    slice.limit((int) offset + length);
+    return slice.slice();
+  }
+
+  // This method returns the number of mazes in the corpus
+  public int size() {
+    return mazes.size();
+  }
+
+  // This method returns the maze with the given index
+  public MappedMaze get(int index) {
+    return mazes.get(index);
+  }
+
+  // This method returns all of the mazes in the corpus
+  public List<MappedMaze> getMazes() {
+    return mazes;
+  }
+
+  // This method closes the file; the mazes can't be used afterwards
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  // This method writes a corpus with the given number of Prim, loopy and
+  // open mazes of each size to the file. The seeds of the mazes are drawn
+  // from the seed given, so the same arguments always give the same file.
+  public static void generate(Path path, int[] sizes, int mazesPerSize, long seed)
+      throws IOException {
+    SplittableRandom seeds = new SplittableRandom(seed);
+    try (MazeCorpusWriter writer = new MazeCorpusWriter(path)) {
+      for (int size : sizes) {
+        for (int kind = SeededMazeGenerator.PRIM; kind <= SeededMazeGenerator.OPEN; kind++) {
+          for (int i = 0; i < mazesPerSize; i++) {
+            long mazeSeed = seeds.nextLong();
+            writer.write(SeededMazeGenerator.generate(kind, size, size, mazeSeed),
+              kind, mazeSeed);
+          }
+        }
+      }
+    }
+  }
+
+  // the main entry point, which writes a corpus to the file given as the
+  // first argument (maze-corpus.bin by default) and times opening it
+  public static void main(String args[]) throws IOException {
+    Path path = Paths.get(args.length > 0 ? args[0] : "maze-corpus.bin");
+    int[] sizes = {11, 21, 41, 81, 161, 321, 641};
+
+    long begin = System.nanoTime();
+    generate(path, sizes, 10, 118L);
+    long generated = System.nanoTime();
+    try (MazeCorpus corpus = open(path)) {
+      long opened = System.nanoTime();
+      System.out.printf("wrote %d mazes (%d bytes) in %.1f ms, opened in %.3f ms%n",
+        corpus.size(), path.toFile().length(), (generated - begin) / 1e6,
+        (opened - generated) / 1e6);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+  This class writes mazes to a corpus file in the format described in
+  MazeCorpus. Mazes can be written whole, or a row at a time after calling
+  beginMaze, so a maze never has to be held in memory to be written. The
+  number of mazes in the file header is filled in when the writer is closed.
+*/
+public class MazeCorpusWriter implements Closeable {
+  // The size of the buffer squares are packed into before being written
+  private static final int BUFFER_BYTES = 1 << 16;
+
+  // The file being written
+  private final FileChannel channel;
+  // The buffer bytes are collected in before being written
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+  // The number of mazes started
+  private int count;
+  // The width of the maze being written and the squares still to come
+  private int width;
+  private long remaining;
+  // The bits of the byte being packed and how many of them are used
+  private int packed;
+  private int bits;
+  // The number of bytes written to the file so far
+  private long written;
+
+  public MazeCorpusWriter(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.CREATE,
+      StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    buffer.putInt(MazeCorpus.MAGIC);
+    buffer.putInt(MazeCorpus.VERSION);
+    buffer.putInt(0);
+    buffer.putInt(0);
+  }
+
+  // This method writes a whole maze of the given kind and seed
+  public void write(Maze maze, int kind, long seed) throws IOException {
+    write(new MazeGrid(maze), kind, seed, maze.getStart(), maze.getFinish());
+  }
+
+  // This method writes a whole grid of the given kind and seed with
+  // the start and finish given
+  public void write(Grid grid, int kind, long seed, Point start, Point finish)
+      throws IOException {
+    beginMaze(kind, seed, grid.getWidth(), grid.getHeight(), start, finish);
+    for (int y = 0; y < grid.getHeight(); y++) {
+      for (int x = 0; x < grid.getWidth(); x++) {
+        writeSquare(grid.isPassable(x, y));
+      }
+    }
+  }
+
+  // This method writes the header of a maze whose squares will follow
+  // row by row through writeRow or writeSquare
+  public void beginMaze(int kind, long seed, int width, int height,
+      Point start, Point finish) throws IOException {
+    if (remaining != 0) {
+      throw new IllegalStateException("the previous maze is not finished");
+    }
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("width and height must be positive");
+    }
+    ensure(MazeCorpus.ENTRY_HEADER_BYTES);
+    buffer.putInt(kind);
+    buffer.putInt(width);
+    buffer.putInt(height);
+    buffer.putInt(start.x);
+    buffer.putInt(start.y);
+    buffer.putInt(finish.x);
+    buffer.putInt(finish.y);
+    buffer.putInt(0);
+    buffer.putLong(seed);
+    this.width = width;
+    this.remaining = (long) width * height;
+    count++;
+  }
+
+  // This method writes the next row of the maze being written, where
+  // true means the square is a passage
+  public void writeRow(boolean[] row) throws IOException {
+    if (row.length != width) {
+      throw new IllegalArgumentException("row must have " + width + " squares");
+    }
+    if (remaining < row.length) {
+      throw new IllegalStateException("no maze is being written");
+    }
+    // Pack the whole row before checking whether the maze has ended
+    for (int x = 0; x < row.length; x++) {
+      packed |= (row[x] ? 1 : 0) << bits;
+      if (++bits == 8) {
+        putPacked();
+      }
+    }
+    remaining -= row.length;
+    if (remaining == 0) {
+      endMaze();
+    }
+  }
+
+  // This method writes the next square of the maze being written
+  public void writeSquare(boolean passable) throws IOException {
+    if (remaining == 0) {
+      throw new IllegalStateException("no maze is being written");
+    }
+    if (passable) {
+      packed |= 1 << bits;
+    }
+    if (++bits == 8) {
+      putPacked();
+    }
+    remaining--;
+    if (remaining == 0) {
+      endMaze();
+    }
+  }
+
+  // This method puts the byte being packed into the buffer
+  private void putPacked() throws IOException {
+    ensure(1);
+    buffer.put((byte) packed);
+    packed = 0;
+    bits = 0;
+  }
+
+  // This method writes out the last few squares of the maze and pads the
+  // end of it so the next one starts on a long boundary
+  private void endMaze() throws IOException {
+    if (bits > 0) {
+      putPacked();
+    }
+    while ((written + buffer.position()) % MazeCorpus.ALIGNMENT != 0) {
+      ensure(1);
+      buffer.put((byte) 0);
+    }
+  }
+
+  // This method returns the number of mazes written so far
+  public int getCount() {
+    return count;
+  }
+
+  // This method makes sure there is room for the given number of bytes
+  // in the buffer, writing it out if there isn't
+  private void ensure(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  // This method writes out the contents of the buffer
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      written += channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  // This method finishes the file by filling in the number of mazes
+  public void close() throws IOException {
+    try {
+      if (remaining != 0) {
+        throw new IllegalStateException("the last maze is not finished");
+      }
+      flush();
+      ByteBuffer header = ByteBuffer.allocate(4);
+      header.putInt(count).flip();
+      channel.write(header, MazeCorpus.COUNT_OFFSET);
+    } finally {
+      channel.close();
+    }
+  }
+}
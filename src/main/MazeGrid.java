@@ -0,0 +1,31 @@
+import uk.ac.warwick.dcs.maze.logic.Maze;
+
+/*
+  This class lets the planners search a Maze directly. It doesn't copy the
+  maze so any walls that are added or removed show up straight away.
+*/
+public class MazeGrid implements Grid {
+  // The maze being viewed
+  private final Maze maze;
+
+  public MazeGrid(Maze maze) {
+    this.maze = maze;
+  }
+
+  // This method returns the maze being viewed
+  public Maze getMaze() {
+    return maze;
+  }
+
+  public int getWidth() {
+    return maze.getWidth();
+  }
+
+  public int getHeight() {
+    return maze.getHeight();
+  }
+
+  public boolean isPassable(int x, int y) {
+    return maze.getCellType(x, y) != Maze.WALL;
+  }
+}
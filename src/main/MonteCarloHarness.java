@@ -0,0 +1,203 @@
+import uk.ac.warwick.dcs.maze.logic.*;
+import uk.ac.warwick.dcs.maze.generators.PrimGenerator;
+import uk.ac.warwick.dcs.maze.generators.LoopyGenerator;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+  This class measures how many steps a stochastic controller such as the
+  RandomController takes on a maze. It runs the controller many times with
+  independent seeds on a pool of threads and adds each step count to an
+  OnlineStatistics. It stops once the confidence interval for the mean
+  number of steps is narrow enough, so it only does as many runs as the
+  answer needs.
+
+  The step counts are added in the order the runs were started, not the
+  order they finish in. Long runs finish last, so taking results as they
+  arrive and stopping part way would leave out the longest runs and make
+  the mean too small. In order, the runs used are always the first ones
+  from the seed, whatever the number of threads, and only runs started
+  after the stopping point are thrown away.
+
+  The controllers don't stop when their thread is interrupted, only when
+  they are reset, and a reset made just before start is called is lost
+  because start sets the controller going again. So once it has stopped,
+  the harness keeps resetting the runs still going until the pool has
+  finished, and run only returns once no run is still moving.
+*/
+public class MonteCarloHarness {
+  // The normal quantile for a 95% confidence interval
+  public static final double Z_95 = 1.959964;
+  // The number of runs started ahead of the oldest unfinished run for each
+  // thread, so that threads don't sit idle while it finishes
+  private static final int AHEAD = 4;
+  // The time (in ms) the harness waits for the runs to finish between
+  // resetting them
+  private static final long RESET_MILLIS = 10;
+
+  // This interface creates a controller whose random numbers
+  // come from the given seed
+  public interface ControllerFactory {
+    IRobotController create(long seed);
+  }
+
+  // The maze every run is made on
+  private final Maze maze;
+  // Creates the controller for each run
+  private final ControllerFactory factory;
+  // The number of threads runs are made on
+  private final int threads;
+  // The seed that the seed of each run is drawn from
+  private final long seed;
+
+  public MonteCarloHarness(Maze maze, ControllerFactory factory) {
+    this(maze, factory, Runtime.getRuntime().availableProcessors(), 118L);
+  }
+
+  public MonteCarloHarness(Maze maze, ControllerFactory factory, int threads, long seed) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be positive");
+    }
+    this.maze = maze;
+    this.factory = factory;
+    this.threads = threads;
+    this.seed = seed;
+  }
+
+  // the main entry point, which prints the step statistics of the
+  // RandomController to within 2% on a maze from each generator, both
+  // moving a square at a time and in fast-forward mode
+  public static void main(String args[]) throws InterruptedException {
+    Maze[] mazes = {
+      (new PrimGenerator()).generateMaze(),
+      (new LoopyGenerator()).generateMaze()
+    };
+    String[] names = {"prim", "loopy"};
+    for (int i = 0; i < mazes.length; i++) {
+      final RunLengthTable table = new RunLengthTable(new MazeGrid(mazes[i]));
+      ControllerFactory[] factories = {
+        seed -> new RandomController(seed),
+        seed -> {
+          RandomController controller = new RandomController(seed);
+          controller.setFastForward(table);
+          return controller;
+        }
+      };
+      String[] modes = {"step", "fast"};
+      for (int m = 0; m < factories.length; m++) {
+        MonteCarloHarness harness = new MonteCarloHarness(mazes[i], factories[m]);
+        long begin = System.nanoTime();
+        OnlineStatistics statistics = harness.run(0.02, 30, 1000000);
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%-6s %-5s %s (%.0f ms, %.0f steps/s)%n", names[i], modes[m],
+          statistics, elapsed / 1e6,
+          statistics.getMean() * statistics.getCount() / (elapsed / 1e9));
+      }
+    }
+  }
+
+  // This method makes runs until the 95% confidence interval for the mean
+  // number of steps is no wider than plus or minus the relative width given
+  // (0.05 for 5% of the mean), making at least minRuns and at most maxRuns
+  public OnlineStatistics run(double relativeWidth, int minRuns, int maxRuns)
+      throws InterruptedException {
+    if (minRuns < 2 || maxRuns < minRuns) {
+      throw new IllegalArgumentException("need 2 <= minRuns <= maxRuns");
+    }
+    OnlineStatistics statistics = new OnlineStatistics();
+    SplittableRandom seeds = new SplittableRandom(seed);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    Queue<Future<Integer>> runs = new ArrayDeque<Future<Integer>>();
+    Set<IRobotController> live = ConcurrentHashMap.newKeySet();
+    AtomicBoolean cancelled = new AtomicBoolean();
+
+    try {
+      // Start enough runs to keep every thread busy
+      int started = 0;
+      while (runs.size() < AHEAD * threads && started < maxRuns) {
+        runs.add(submit(pool, live, cancelled, seeds.nextLong()));
+        started++;
+      }
+
+      // Add the results in the order the runs were started, waiting for
+      // each in turn, and start another run after each one unless the
+      // interval is already narrow enough
+      while (!runs.isEmpty()) {
+        statistics.add(runs.remove().get());
+        boolean done = statistics.getCount() >= minRuns
+          && statistics.getHalfWidth(Z_95) <= relativeWidth * statistics.getMean();
+        if (done) {
+          break;
+        }
+        if (started < maxRuns) {
+          runs.add(submit(pool, live, cancelled, seeds.nextLong()));
+          started++;
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("a run failed", e.getCause());
+    } finally {
+      // Stop the runs started after the stopping point, resetting the
+      // ones going until they have all finished
+      cancelled.set(true);
+      for (Future<Integer> run : runs) {
+        run.cancel(false);
+      }
+      pool.shutdown();
+      do {
+        for (IRobotController controller : live) {
+          controller.reset();
+        }
+      } while (!pool.awaitTermination(RESET_MILLIS, TimeUnit.MILLISECONDS));
+    }
+    return statistics;
+  }
+
+  // This method starts a run with the given seed, keeping track of the
+  // controller while it runs so that it can be stopped early. A run that
+  // begins after the harness has stopped doesn't move at all.
+  private Future<Integer> submit(ExecutorService pool,
+      final Set<IRobotController> live, final AtomicBoolean cancelled,
+      final long runSeed) {
+    return pool.submit(() -> {
+      // Give each run its own copy of the maze and its own robot
+      RobotImpl robot = new RobotImpl();
+      robot.setMaze(copyMaze(maze));
+      IRobotController controller = factory.create(runSeed);
+      controller.setRobot(robot);
+
+      live.add(controller);
+      try {
+        if (cancelled.get()) {
+          return 0;
+        }
+        controller.start();
+      } finally {
+        live.remove(controller);
+      }
+      return robot.getSteps();
+    });
+  }
+
+  // This method returns a copy of the maze
+  public static Maze copyMaze(Maze maze) {
+    Maze copy = new Maze(maze.getWidth(), maze.getHeight());
+    for (int x = 0; x < maze.getWidth(); x++) {
+      for (int y = 0; y < maze.getHeight(); y++) {
+        copy.setCellType(x, y, maze.getCellType(x, y));
+      }
+    }
+    copy.setStart(maze.getStart().x, maze.getStart().y);
+    copy.setFinish(maze.getFinish().x, maze.getFinish().y);
+    return copy;
+  }
+}
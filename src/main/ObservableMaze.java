@@ -0,0 +1,58 @@
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+  This class is a Maze that tells its listeners whenever setCellType
+  changes a square, so that anything worked out from the maze can be
+  repaired rather than worked out again from scratch. Listeners are called
+  on the thread that changed the square, after the change has been made.
+  Setting a square to the type it already has doesn't tell anyone.
+*/
+public class ObservableMaze extends Maze {
+  // The listeners to tell about changes, which is null while the Maze
+  // constructor is still running
+  private final List<CellListener> listeners = new CopyOnWriteArrayList<CellListener>();
+
+  public ObservableMaze(int width, int height) {
+    super(width, height);
+  }
+
+  // This method returns a copy of the maze that tells its listeners
+  // about changes
+  public static ObservableMaze copyOf(Maze maze) {
+    ObservableMaze copy = new ObservableMaze(maze.getWidth(), maze.getHeight());
+    for (int x = 0; x < maze.getWidth(); x++) {
+      for (int y = 0; y < maze.getHeight(); y++) {
+        copy.setCellType(x, y, maze.getCellType(x, y));
+      }
+    }
+    copy.setStart(maze.getStart().x, maze.getStart().y);
+    copy.setFinish(maze.getFinish().x, maze.getFinish().y);
+    return copy;
+  }
+
+  // This method adds a listener to be told about changes
+  public void addCellListener(CellListener listener) {
+    listeners.add(listener);
+  }
+
+  // This method stops a listener being told about changes
+  public void removeCellListener(CellListener listener) {
+    listeners.remove(listener);
+  }
+
+  public void setCellType(int x, int y, int type) {
+    if (listeners == null) {
+      super.setCellType(x, y, type);
+      return;
+    }
+    int oldType = getCellType(x, y);
+    super.setCellType(x, y, type);
+    if (oldType != type) {
+      for (CellListener listener : listeners) {
+        listener.cellChanged(x, y, oldType, type);
+      }
+    }
+  }
+}
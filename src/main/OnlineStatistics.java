@@ -0,0 +1,93 @@
+/*
+  This class keeps the count, mean and variance of a stream of values
+  without storing them, using Welford's method so that the variance stays
+  accurate for long runs with large step counts. It also keeps estimates of
+  the median and the 90th and 99th percentiles using P2Quantile sketches.
+*/
+public class OnlineStatistics {
+  // The number of values added
+  private long count;
+  // The mean of the values added
+  private double mean;
+  // The sum of the squared differences from the mean
+  private double squares;
+  // The smallest and largest values added
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+  // The quantile sketches
+  private final P2Quantile median = new P2Quantile(0.5);
+  private final P2Quantile p90 = new P2Quantile(0.9);
+  private final P2Quantile p99 = new P2Quantile(0.99);
+
+  // This method adds a value to the statistics
+  public void add(double value) {
+    count++;
+    double delta = value - mean;
+    mean += delta / count;
+    squares += delta * (value - mean);
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+    median.add(value);
+    p90.add(value);
+    p99.add(value);
+  }
+
+  // This method returns the number of values added
+  public long getCount() {
+    return count;
+  }
+
+  // This method returns the mean of the values added
+  public double getMean() {
+    return mean;
+  }
+
+  // This method returns the sample variance of the values added
+  public double getVariance() {
+    return count < 2 ? 0.0 : squares / (count - 1);
+  }
+
+  // This method returns the sample standard deviation of the values added
+  public double getStandardDeviation() {
+    return Math.sqrt(getVariance());
+  }
+
+  // This method returns half the width of the confidence interval for the
+  // mean, where z is the normal quantile for the confidence level wanted
+  // (1.96 for 95%)
+  public double getHalfWidth(double z) {
+    return count < 2 ? Double.POSITIVE_INFINITY : z * Math.sqrt(getVariance() / count);
+  }
+
+  // This method returns the smallest value added
+  public double getMin() {
+    return min;
+  }
+
+  // This method returns the largest value added
+  public double getMax() {
+    return max;
+  }
+
+  // This method returns the estimated median of the values added
+  public double getMedian() {
+    return median.getQuantile();
+  }
+
+  // This method returns the estimated 90th percentile of the values added
+  public double getP90() {
+    return p90.getQuantile();
+  }
+
+  // This method returns the estimated 99th percentile of the values added
+  public double getP99() {
+    return p99.getQuantile();
+  }
+
+  public String toString() {
+    return String.format(
+      "n=%d mean=%.1f sd=%.1f min=%.0f median=%.1f p90=%.1f p99=%.1f max=%.0f",
+      count, mean, getStandardDeviation(), min, getMedian(), getP90(),
+      getP99(), max);
+  }
+}
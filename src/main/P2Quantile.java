@@ -0,0 +1,123 @@
+import java.util.Arrays;
+
+/*
+  This class estimates a single quantile of a stream of values with the P2
+  algorithm of Jain and Chlamtac. It keeps five markers whose heights are
+  adjusted with a parabolic formula as values arrive, so it uses the same
+  small amount of memory however many values are added.
+*/
+public class P2Quantile {
+  // The quantile being estimated, between 0 and 1
+  private final double p;
+  // The heights of the markers
+  private final double[] heights = new double[5];
+  // The actual and desired positions of the markers
+  private final double[] positions = new double[5];
+  private final double[] desired = new double[5];
+  // The amount each desired position moves by per value
+  private final double[] increments;
+  // The number of values added
+  private long count;
+
+  public P2Quantile(double p) {
+    if (p <= 0.0 || p >= 1.0) {
+      throw new IllegalArgumentException("p must be between 0 and 1");
+    }
+    this.p = p;
+    this.increments = new double[] {0.0, p / 2, p, (1 + p) / 2, 1.0};
+  }
+
+  // This method adds a value to the sketch
+  public void add(double value) {
+    // Store the first five values as they are
+    if (count < 5) {
+      heights[(int) count++] = value;
+      if (count == 5) {
+        Arrays.sort(heights);
+        for (int i = 0; i < 5; i++) {
+          positions[i] = i + 1;
+        }
+        desired[0] = 1;
+        desired[1] = 1 + 2 * p;
+        desired[2] = 1 + 4 * p;
+        desired[3] = 3 + 2 * p;
+        desired[4] = 5;
+      }
+      return;
+    }
+    count++;
+
+    // Find the cell the value falls in, stretching the ends if needed
+    int k;
+    if (value < heights[0]) {
+      heights[0] = value;
+      k = 0;
+    } else if (value >= heights[4]) {
+      heights[4] = Math.max(heights[4], value);
+      k = 3;
+    } else {
+      k = 0;
+      while (value >= heights[k + 1]) {
+        k++;
+      }
+    }
+    for (int i = k + 1; i < 5; i++) {
+      positions[i]++;
+    }
+    for (int i = 0; i < 5; i++) {
+      desired[i] += increments[i];
+    }
+
+    // Move the middle markers towards their desired positions
+    for (int i = 1; i < 4; i++) {
+      double d = desired[i] - positions[i];
+      if ((d >= 1 && positions[i + 1] - positions[i] > 1)
+          || (d <= -1 && positions[i - 1] - positions[i] < -1)) {
+        int sign = d > 0 ? 1 : -1;
+        double height = parabolic(i, sign);
+        if (heights[i - 1] < height && height < heights[i + 1]) {
+          heights[i] = height;
+        } else {
+          heights[i] = linear(i, sign);
+        }
+        positions[i] += sign;
+      }
+    }
+  }
+
+  // This method returns the parabolic prediction for moving marker i
+  private double parabolic(int i, int sign) {
+    double n = positions[i];
+    double below = positions[i - 1];
+    double above = positions[i + 1];
+    return heights[i] + sign / (above - below)
+      * ((n - below + sign) * (heights[i + 1] - heights[i]) / (above - n)
+        + (above - n - sign) * (heights[i] - heights[i - 1]) / (n - below));
+  }
+
+  // This method returns the linear prediction for moving marker i
+  private double linear(int i, int sign) {
+    return heights[i] + sign * (heights[i + sign] - heights[i])
+      / (positions[i + sign] - positions[i]);
+  }
+
+  // This method returns the estimated quantile, or NaN if no values
+  // have been added
+  public double getQuantile() {
+    if (count == 0) {
+      return Double.NaN;
+    }
+    if (count < 5) {
+      // Use the exact quantile of the values seen so far
+      double[] sorted = Arrays.copyOf(heights, (int) count);
+      Arrays.sort(sorted);
+      return sorted[(int) Math.min(count - 1, Math.round(p * (count - 1)))];
+    }
+    return heights[2];
+  }
+
+  // This method returns the number of values added
+  public long getCount() {
+    return count;
+  }
+}
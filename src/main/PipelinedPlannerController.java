@@ -0,0 +1,437 @@
+import uk.ac.warwick.dcs.maze.logic.*;
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+  This controller follows planned paths like the PlannerController but does
+  the planning on a separate thread. The planning thread splits each path
+  into short segments and puts them in a small queue, and the robot takes
+  them into the run of squares it is about to move through.
+
+  When a wall blocks the squares ahead, either because the robot sees it or
+  because an ObservableMaze reports it, the robot starts a new epoch, which
+  makes any segments already in the queue stale. The new plan starts from a
+  square a little further along the part of the path that is still clear,
+  and the robot keeps moving towards that square while the planning thread
+  works, so with a delay between moves it doesn't have to wait for the plan
+  at all. Without a delay there are no moves to hide a plan behind, and
+  handing it between threads only costs time, so the robot plans for itself
+  from where it stands and takes the same path as the PlannerController.
+  The planning thread is only started once the robot needs a plan while it
+  has a delay.
+*/
+public class PipelinedPlannerController implements IRobotController, CellListener {
+  // The absolute headings in clockwise order
+  private static final int[] HEADINGS = {
+    IRobot.NORTH, IRobot.EAST, IRobot.SOUTH, IRobot.WEST
+  };
+  // The number of segments that can wait in the queue
+  private static final int QUEUE_SIZE = 4;
+  // The time (in ms) the robot waits for a segment before checking it
+  // should stop
+  private static final long POLL_MILLIS = 10;
+
+  // The robot in the maze
+  private IRobot robot;
+  // A flag to indicate whether we are looking for a path, read by both
+  // the robot and the planning thread
+  private volatile boolean active = false;
+  // A value (in ms) indicating how long we should wait
+  // between moves
+  private volatile int delay;
+  // The planner used to find paths
+  private final GridPlanner planner;
+  // The number of moves in each segment
+  private final int segmentLength;
+  // The maze the robot is in
+  private Grid grid;
+  // The maze being listened to for new walls, if it can be
+  private ObservableMaze observed;
+  // The number of walls added to the observed maze
+  private final AtomicInteger walls = new AtomicInteger();
+  // The number of walls added when the squares ahead were last checked
+  private int checked;
+  // The segments planned but not yet taken by the robot
+  private final BlockingQueue<Segment> segments =
+    new ArrayBlockingQueue<Segment>(QUEUE_SIZE);
+  // The squares the robot is about to move through, from head to tail
+  private int[] ahead = new int[64];
+  private int head;
+  private int tail;
+  // A flag set when a plan finds the target can't be reached
+  private boolean unreachable;
+  // The current epoch, which goes up every time the robot needs a new plan
+  private final AtomicInteger epoch = new AtomicInteger();
+  // The latest epoch the planning thread has been asked to plan for
+  private volatile int requested;
+  // The planning thread, or null if it hasn't been needed yet
+  private Thread planning;
+  // The square the plan for the current epoch starts from
+  private volatile int origin;
+  // The target square when the current epoch started
+  private volatile int goal;
+  // The time (in ns) the last plan took
+  private volatile long planNanos;
+  // The number of plans made since the controller was started
+  private final AtomicInteger plans = new AtomicInteger();
+  // The number of segments from the planning thread the robot has taken
+  // into the squares ahead since the controller was started
+  private int taken;
+  // The lock the planning thread waits on between epochs
+  private final Object lock = new Object();
+
+  // This class is a run of squares for the robot to move through, tagged
+  // with the epoch it was planned in and the number of walls that had been
+  // added when planning began. The squares are null if the target couldn't
+  // be reached.
+  private static final class Segment {
+    final int epoch;
+    final int walls;
+    final int[] squares;
+
+    Segment(int epoch, int walls, int[] squares) {
+      this.epoch = epoch;
+      this.walls = walls;
+      this.squares = squares;
+    }
+  }
+
+  public PipelinedPlannerController() {
+    this(new JumpPointPlanner(), 16);
+  }
+
+  public PipelinedPlannerController(GridPlanner planner, int segmentLength) {
+    if (segmentLength < 1) {
+      throw new IllegalArgumentException("segmentLength must be positive");
+    }
+    this.planner = planner;
+    this.segmentLength = segmentLength;
+  }
+
+  // This method is called when the "start" button is clicked
+  // in the user interface
+  public void start() {
+    if (grid == null) {
+      throw new IllegalStateException("setMaze must be called before start");
+    }
+    // Set flag to start looking for a path and ask for a plan from here
+    this.active = true;
+    head = 0;
+    tail = 0;
+    unreachable = false;
+    checked = walls.get();
+    requested = 0;
+    plans.set(0);
+    taken = 0;
+    Point location = robot.getLocation();
+    Point target = robot.getTargetLocation();
+    // Let the run be watched over JMX while it lasts
+    ControllerMonitor monitor = ControllerMonitor.watch(this);
+
+    try {
+      newEpoch(here());
+
+      // Loop while we haven't found the exit and the agent
+      // has not been interrupted
+      while(!location.equals(target) && active) {
+        // Check the squares ahead again if a wall has been added
+        if (walls.get() != checked) {
+          checked = walls.get();
+          drain();
+          cut(firstWall(head));
+        }
+
+        if (head == tail) {
+          // The target can't be reached so give up
+          if (unreachable) {
+            break;
+          }
+          // Wait for the planning thread
+          monitor.update(location, target, robot.getSteps(), "waiting for plan");
+          Segment segment = segments.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+          if (segment != null) {
+            take(segment);
+            drain();
+          }
+          continue;
+        }
+
+        // Face the next square and start a new epoch if a wall has
+        // appeared there, otherwise move into it
+        robot.setHeading(headingTo(location, ahead[head]));
+        if (robot.look(IRobot.AHEAD) == IRobot.WALL) {
+          cut(head);
+          continue;
+        }
+        robot.advance();
+        head++;
+        location = robot.getLocation();
+        target = robot.getTargetLocation();
+        monitor.update(location, target, robot.getSteps(), "following path");
+
+        // Wait for a while if we are supposed to
+        if (delay > 0) {
+          robot.sleep(delay);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      monitor.unregister();
+      // Stop the planning thread
+      active = false;
+      if (planning != null) {
+        planning.interrupt();
+        try {
+          planning.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        planning = null;
+      }
+    }
+  }
+
+  // This method takes every segment waiting in the queue without blocking
+  private void drain() {
+    Segment segment;
+    while ((segment = segments.poll()) != null) {
+      take(segment);
+    }
+  }
+
+  // This method adds the squares of a segment from the current epoch to the
+  // squares ahead, and checks them if a wall was added while they were
+  // being planned
+  private void take(Segment segment) {
+    if (segment.epoch != epoch.get()) {
+      return;
+    }
+    if (segment.squares == null) {
+      unreachable = true;
+      return;
+    }
+    int from = tail;
+    append(segment.squares, 0, segment.squares.length);
+    taken++;
+    if (segment.walls != walls.get()) {
+      cut(firstWall(from));
+    }
+  }
+
+  // This method adds the given run of squares to the squares ahead
+  private void append(int[] squares, int from, int length) {
+    if (tail + length > ahead.length) {
+      // Move the squares ahead back to the start, growing if they won't fit
+      int count = tail - head;
+      int[] moved = (count + length > ahead.length)
+        ? new int[Math.max(2 * ahead.length, count + length)]
+        : ahead;
+      System.arraycopy(ahead, head, moved, 0, count);
+      ahead = moved;
+      head = 0;
+      tail = count;
+    }
+    System.arraycopy(squares, from, ahead, tail, length);
+    tail += length;
+  }
+
+  // This method returns the index of the first wall in the squares ahead
+  // from the given index, or the tail if there isn't one
+  private int firstWall(int from) {
+    int width = grid.getWidth();
+    for (int i = from; i < tail; i++) {
+      if (!grid.isPassable(ahead[i] % width, ahead[i] / width)) {
+        return i;
+      }
+    }
+    return tail;
+  }
+
+  // This method drops the squares ahead from the given wall onwards and
+  // starts a new epoch. With a delay between moves the robot keeps as many
+  // of the clear squares as it can move through while the last plan took,
+  // and the new plan starts from the last of them.
+  private void cut(int wall) {
+    if (wall == tail) {
+      return;
+    }
+    int keep = 0;
+    if (delay > 0) {
+      keep = (int) Math.min(wall - head, planNanos / (delay * 1000000L) + 1);
+    }
+    tail = head + keep;
+    newEpoch(keep == 0 ? here() : ahead[tail - 1]);
+  }
+
+  // This method returns the square the robot is on
+  private int here() {
+    Point location = robot.getLocation();
+    return location.y * grid.getWidth() + location.x;
+  }
+
+  // This method starts a new epoch planning from the given square and
+  // throws away the stale segments. Without a delay it plans straight away,
+  // otherwise it wakes the planning thread up, starting it if need be.
+  private void newEpoch(int from) {
+    Point target = robot.getTargetLocation();
+    origin = from;
+    goal = target.y * grid.getWidth() + target.x;
+    int current = epoch.incrementAndGet();
+    segments.clear();
+
+    if (delay == 0) {
+      int[] path = plan(origin, goal);
+      if (path == null) {
+        unreachable = true;
+      } else {
+        append(path, 1, path.length - 1);
+      }
+      return;
+    }
+    if (planning == null) {
+      planning = new Thread(this::planLoop, "planner");
+      planning.setDaemon(true);
+      planning.start();
+    }
+    synchronized (lock) {
+      requested = current;
+      lock.notifyAll();
+    }
+  }
+
+  // This method plans a path between the squares and times it. Both the
+  // robot and the planning thread may plan if the delay changes during a
+  // run, so they take turns with the planner.
+  private int[] plan(int from, int to) {
+    int width = grid.getWidth();
+    synchronized (planner) {
+      long begin = System.nanoTime();
+      int[] path = planner.plan(grid, from % width, from / width,
+        to % width, to / width);
+      planNanos = System.nanoTime() - begin;
+      plans.incrementAndGet();
+      return path;
+    }
+  }
+
+  // This method is run by the planning thread. It plans a path for each
+  // new epoch and puts it into the queue a segment at a time.
+  private void planLoop() {
+    int planned = 0;
+    try {
+      while (active) {
+        // Wait until the robot needs a new plan
+        synchronized (lock) {
+          while (active && requested == planned) {
+            lock.wait();
+          }
+          planned = requested;
+        }
+        int seen = walls.get();
+        int[] path = plan(origin, goal);
+
+        if (path == null) {
+          offer(new Segment(planned, seen, null));
+          continue;
+        }
+        // Queue the path a segment at a time, stopping early if the
+        // robot starts a new epoch
+        for (int i = 1; i < path.length && epoch.get() == planned; i += segmentLength) {
+          int end = Math.min(i + segmentLength, path.length);
+          offer(new Segment(planned, seen, Arrays.copyOfRange(path, i, end)));
+        }
+      }
+    } catch (InterruptedException e) {
+      // The robot has stopped
+    }
+  }
+
+  // This method waits for room in the queue for the segment, giving up
+  // if the segment becomes stale
+  private void offer(Segment segment) throws InterruptedException {
+    while (segment.epoch == epoch.get()) {
+      if (segments.offer(segment, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        return;
+      }
+    }
+  }
+
+  // This method is called by an ObservableMaze when a square changes, and
+  // may be on another thread, so it only counts the walls added
+  public void cellChanged(int x, int y, int oldType, int newType) {
+    if (newType == Maze.WALL) {
+      walls.incrementAndGet();
+    }
+  }
+
+  // This method returns the heading from the robot's location to the
+  // neighbouring square given
+  private int headingTo(Point location, int square) {
+    int x = square % grid.getWidth();
+    int y = square / grid.getWidth();
+    if (y < location.y) {
+      return HEADINGS[0];
+    } else if (x > location.x) {
+      return HEADINGS[1];
+    } else if (y > location.y) {
+      return HEADINGS[2];
+    }
+    return HEADINGS[3];
+  }
+
+  // This method returns the number of plans made during the last run
+  public int getPlans() {
+    return plans.get();
+  }
+
+  // This method returns the number of segments from the planning thread
+  // the robot took during the last run, which is 0 if it planned for
+  // itself
+  public int getSegments() {
+    return taken;
+  }
+
+  // sets the maze the robot is in so that paths can be planned, listening
+  // for new walls if it is an ObservableMaze
+  public void setMaze(Maze maze) {
+    if (observed != null) {
+      observed.removeCellListener(this);
+      observed = null;
+    }
+    this.grid = new MazeGrid(maze);
+    if (maze instanceof ObservableMaze) {
+      observed = (ObservableMaze) maze;
+      observed.addCellListener(this);
+    }
+  }
+
+  // this method returns a description of this controller
+  public String getDescription() {
+    return "A controller which plans paths while it moves";
+  }
+
+  // sets the delay
+  public void setDelay(int millis) {
+    delay = millis;
+  }
+
+  // gets the current delay
+  public int getDelay() {
+    return delay;
+  }
+
+  // stops the controller
+  public void reset() {
+    active = false;
+  }
+
+  // sets the reference to the robot
+  public void setRobot(IRobot robot) {
+    this.robot = robot;
+  }
+}
@@ -0,0 +1,180 @@
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import uk.ac.warwick.dcs.maze.logic.RobotImpl;
+import uk.ac.warwick.dcs.maze.logic.IRobotController;
+import uk.ac.warwick.dcs.maze.generators.PrimGenerator;
+import uk.ac.warwick.dcs.maze.generators.LoopyGenerator;
+import java.util.Random;
+
+/*
+  This class compares plain A* against jump point search on open grids and
+  on mazes from the primGenerator and the loopyGenerator. For each kind of
+  maze it plans from the start to the finish and prints the path length,
+  the number of squares expanded and the average time per plan. It then
+  compares how many steps per second the PlannerController and the
+  PipelinedPlannerController manage when they plan and move on a maze.
+  Finally it makes many plans between random rooms of large seeded mazes
+  with A* and with the LandmarkPlanner using different numbers of
+  landmarks, and prints what building the landmarks cost against the
+  squares expanded per plan.
+*/
+public class PlannerBenchmark {
+  // The number of times each plan is repeated when timing
+  private static final int REPEATS = 200;
+  // The number of random plans made on each maze with landmarks
+  private static final int QUERIES = 2000;
+  // The number of times each controller is run when timing
+  private static final int RUNS = 5000;
+
+  // do not allow this class to be instantiated
+  private PlannerBenchmark() {}
+
+  // the main entry point for the benchmark
+  public static void main(String args[]) {
+    System.out.printf("%-8s %-18s %8s %12s %12s%n",
+      "maze", "planner", "length", "expansions", "ns/plan");
+
+    for (int m = 0; m < 3; m++) {
+      String name;
+      Maze maze;
+      if (m == 0) {
+        name = "open";
+        maze = openMaze(200, 200);
+      } else if (m == 1) {
+        name = "prim";
+        maze = (new PrimGenerator()).generateMaze();
+      } else {
+        name = "loopy";
+        maze = (new LoopyGenerator()).generateMaze();
+      }
+
+      report(name, maze, new AStarPlanner());
+      report(name, maze, new JumpPointPlanner());
+    }
+
+    System.out.println();
+    System.out.printf("%-8s %-28s %8s %12s%n",
+      "maze", "controller", "steps", "steps/s");
+    for (int i = 0; i < 3; i++) {
+      Maze maze = (i == 0)
+        ? openMaze(200, 200)
+        : (new LoopyGenerator()).generateMaze();
+      String name = (i == 0) ? "open" : "loopy";
+      PlannerController planner = new PlannerController();
+      planner.setMaze(maze);
+      PipelinedPlannerController pipelined = new PipelinedPlannerController();
+      pipelined.setMaze(maze);
+      run(name, maze, planner);
+      run(name, maze, pipelined);
+    }
+
+    System.out.println();
+    System.out.printf("%-8s %-10s %14s %12s %12s %12s%n",
+      "maze", "landmarks", "preprocess ms", "memory KB", "expansions", "ns/plan");
+    int[] counts = {0, 4, 8, 16};
+    for (int kind = SeededMazeGenerator.PRIM; kind <= SeededMazeGenerator.LOOPY; kind++) {
+      String name = (kind == SeededMazeGenerator.PRIM) ? "prim" : "loopy";
+      Grid grid = new MazeGrid(SeededMazeGenerator.generate(kind, 301, 301, 118L));
+      for (int count : counts) {
+        queries(name, grid, count);
+      }
+    }
+  }
+
+  // This method makes plans between random rooms of the grid, using A* if
+  // the number of landmarks is 0, and prints a row of results
+  private static void queries(String name, Grid grid, int count) {
+    GridPlanner planner = new AStarPlanner();
+    LandmarkTable table = null;
+    if (count > 0) {
+      table = new LandmarkTable(grid, count);
+      planner = new LandmarkPlanner(table);
+    }
+
+    // Use the same plans for every number of landmarks, and make them
+    // all once to warm up before timing
+    long expansions = 0;
+    long nanos = 0;
+    for (int pass = 0; pass < 2; pass++) {
+      Random random = new Random(118L);
+      int rooms = grid.getWidth() / 2;
+      expansions = 0;
+      long begin = System.nanoTime();
+      for (int i = 0; i < QUERIES; i++) {
+        planner.plan(grid,
+          2 * random.nextInt(rooms) + 1, 2 * random.nextInt(rooms) + 1,
+          2 * random.nextInt(rooms) + 1, 2 * random.nextInt(rooms) + 1);
+        expansions += planner.getExpansions();
+      }
+      nanos = System.nanoTime() - begin;
+    }
+
+    System.out.printf("%-8s %-10d %14.1f %12d %12d %12d%n", name, count,
+      table == null ? 0 : table.getPreprocessingNanos() / 1e6,
+      table == null ? 0 : table.getMemoryBytes() / 1024,
+      expansions / QUERIES, nanos / QUERIES);
+  }
+
+  // This method runs the controller from the start to the finish of the
+  // maze many times and prints a row of results
+  private static void run(String name, Maze maze, IRobotController controller) {
+    // Warm up before timing
+    long steps = 0;
+    long elapsed = 0;
+    for (int pass = 0; pass < 2; pass++) {
+      steps = 0;
+      long begin = System.nanoTime();
+      for (int i = 0; i < RUNS; i++) {
+        RobotImpl robot = new RobotImpl();
+        robot.setMaze(maze);
+        controller.setRobot(robot);
+        controller.start();
+        steps += robot.getSteps();
+      }
+      elapsed = System.nanoTime() - begin;
+    }
+
+    System.out.printf("%-8s %-28s %8d %12.0f%n",
+      name, controller.getClass().getSimpleName(),
+      steps / RUNS, steps / (elapsed / 1e9));
+  }
+
+  // This method times the planner on the maze and prints a row of results
+  private static void report(String name, Maze maze, GridPlanner planner) {
+    Grid grid = new MazeGrid(maze);
+    int sx = maze.getStart().x;
+    int sy = maze.getStart().y;
+    int fx = maze.getFinish().x;
+    int fy = maze.getFinish().y;
+
+    // Warm up before timing
+    int[] path = null;
+    for (int i = 0; i < REPEATS; i++) {
+      path = planner.plan(grid, sx, sy, fx, fy);
+    }
+    long begin = System.nanoTime();
+    for (int i = 0; i < REPEATS; i++) {
+      path = planner.plan(grid, sx, sy, fx, fy);
+    }
+    long elapsed = System.nanoTime() - begin;
+
+    System.out.printf("%-8s %-18s %8d %12d %12d%n",
+      name, planner.getClass().getSimpleName(),
+      path == null ? -1 : path.length - 1,
+      planner.getExpansions(), elapsed / REPEATS);
+  }
+
+  // This method returns a maze with no walls inside a wall around the
+  // edge, with the start and finish in opposite corners
+  public static Maze openMaze(int columns, int rows) {
+    Maze maze = new Maze(columns, rows);
+    for (int i = 0; i < columns; i++) {
+      for (int j = 0; j < rows; j++) {
+        boolean edge = i == 0 || j == 0 || i == columns - 1 || j == rows - 1;
+        maze.setCellType(i, j, edge ? Maze.WALL : Maze.PASSAGE);
+      }
+    }
+    maze.setStart(1, 1);
+    maze.setFinish(columns - 2, rows - 2);
+    return maze;
+  }
+}
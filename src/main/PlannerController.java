@@ -0,0 +1,196 @@
+import uk.ac.warwick.dcs.maze.logic.*;
+import java.awt.Point;
+
+/*
+  This controller plans a shortest path to the target before it moves and
+  then follows it one step at a time. Unlike the other controllers it needs
+  to be given the maze with setMaze so that it can plan. The robot still
+  looks before every step, and if a wall has appeared in the way since the
+  path was planned it plans again from where it is. Given an ObservableMaze
+  it also listens for new walls and checks the rest of its path as soon as
+  one appears, so it can turn off before reaching the blocked square.
+*/
+public class PlannerController implements IRobotController, CellListener {
+  // The absolute headings in clockwise order
+  private static final int[] HEADINGS = {
+    IRobot.NORTH, IRobot.EAST, IRobot.SOUTH, IRobot.WEST
+  };
+
+  // The robot in the maze
+  private IRobot robot;
+  // A flag to indicate whether we are looking for a path
+  private volatile boolean active = false;
+  // A value (in ms) indicating how long we should wait
+  // between moves
+  private volatile int delay;
+  // The planner used to find paths
+  private final GridPlanner planner;
+  // The maze the robot is in
+  private Grid grid;
+  // The maze being listened to for new walls, if it can be
+  private ObservableMaze observed;
+  // A flag set when a wall has been added since the path was checked
+  private volatile boolean wallAdded;
+  // The squares on the current path and the index of the next one
+  private int[] path;
+  private int next;
+  // The number of plans made since the controller was started
+  private int plans;
+
+  public PlannerController() {
+    this(new JumpPointPlanner());
+  }
+
+  public PlannerController(GridPlanner planner) {
+    this.planner = planner;
+  }
+
+  // This method is called when the "start" button is clicked
+  // in the user interface
+  public void start() {
+    if (grid == null) {
+      throw new IllegalStateException("setMaze must be called before start");
+    }
+    // Set flag to start looking for a path and forget any old path
+    this.active = true;
+    this.path = null;
+    this.plans = 0;
+    Point location = robot.getLocation();
+    Point target = robot.getTargetLocation();
+    // Let the run be watched over JMX while it lasts
+    ControllerMonitor monitor = ControllerMonitor.watch(this);
+    try {
+      // Loop while we haven't found the exit and the agent
+      // has not been interrupted
+      while(!location.equals(target) && active) {
+        // Forget the path if a new wall has blocked the rest of it
+        if (wallAdded) {
+          wallAdded = false;
+          if (path != null && blocked()) {
+            path = null;
+          }
+        }
+
+        // Plan a path if we don't have one
+        if (path == null) {
+          monitor.update(location, target, robot.getSteps(), "planning");
+          if (!plan(location, target)) {
+            // The target can't be reached so give up
+            break;
+          }
+        }
+
+        // Face the next square on the path and plan again if a wall has
+        // appeared there, otherwise move into it
+        robot.setHeading(headingTo(location, path[next]));
+        if (robot.look(IRobot.AHEAD) == IRobot.WALL) {
+          path = null;
+          continue;
+        }
+        robot.advance();
+        next++;
+        location = robot.getLocation();
+        target = robot.getTargetLocation();
+        monitor.update(location, target, robot.getSteps(), "following path");
+
+        // Wait for a while if we are supposed to
+        if (delay > 0) {
+          robot.sleep(delay);
+        }
+      }
+    } finally {
+      monitor.unregister();
+    }
+  }
+
+  // This method plans a path from the location to the target and returns
+  // false if there isn't one
+  private boolean plan(Point location, Point target) {
+    path = planner.plan(grid, location.x, location.y, target.x, target.y);
+    next = 1;
+    plans++;
+    return path != null;
+  }
+
+  // This method returns whether any square left on the path is a wall
+  private boolean blocked() {
+    for (int i = next; i < path.length; i++) {
+      if (!grid.isPassable(path[i] % grid.getWidth(), path[i] / grid.getWidth())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // This method is called by an ObservableMaze when a square changes, and
+  // may be on another thread, so it only notes that a wall was added
+  public void cellChanged(int x, int y, int oldType, int newType) {
+    if (newType == Maze.WALL) {
+      wallAdded = true;
+    }
+  }
+
+  // This method returns the heading from the robot's location to the
+  // neighbouring square given
+  private int headingTo(Point location, int square) {
+    int x = square % grid.getWidth();
+    int y = square / grid.getWidth();
+    if (y < location.y) {
+      return HEADINGS[0];
+    } else if (x > location.x) {
+      return HEADINGS[1];
+    } else if (y > location.y) {
+      return HEADINGS[2];
+    }
+    return HEADINGS[3];
+  }
+
+  // This method returns the planner used by this controller
+  public GridPlanner getPlanner() {
+    return planner;
+  }
+
+  // This method returns the number of plans made during the last run
+  public int getPlans() {
+    return plans;
+  }
+
+  // sets the maze the robot is in so that paths can be planned, listening
+  // for new walls if it is an ObservableMaze
+  public void setMaze(Maze maze) {
+    if (observed != null) {
+      observed.removeCellListener(this);
+      observed = null;
+    }
+    this.grid = new MazeGrid(maze);
+    if (maze instanceof ObservableMaze) {
+      observed = (ObservableMaze) maze;
+      observed.addCellListener(this);
+    }
+  }
+
+  // this method returns a description of this controller
+  public String getDescription() {
+    return "A controller which plans a shortest path to the target";
+  }
+
+  // sets the delay
+  public void setDelay(int millis) {
+    delay = millis;
+  }
+
+  // gets the current delay
+  public int getDelay() {
+    return delay;
+  }
+
+  // stops the controller
+  public void reset() {
+    active = false;
+  }
+
+  // sets the reference to the robot
+  public void setRobot(IRobot robot) {
+    this.robot = robot;
+  }
+}
@@ -0,0 +1,300 @@
+import uk.ac.warwick.dcs.maze.logic.*;
+import java.awt.Point;
+
+/*
+  This controller homes in on the target in the same way as the
+  HomingController but when both of the directions towards the target are
+  blocked it switches to the Pledge algorithm. The robot keeps the wall on
+  its left and counts the quarter turns it makes, leaving the wall again once
+  the turns have unwound back to the heading it was blocked in. Unlike the
+  HomingController this lets the robot escape from any obstacle, and unlike a
+  controller that maps the maze it only needs a handful of fields no matter
+  how big the maze is.
+
+  Leaving the wall as soon as the turns unwind can send the robot straight
+  back to the obstacle, so the Pledge exit is only taken the first time the
+  robot gets blocked at a new closest distance to the target. Otherwise it
+  only leaves the wall from a square closer to the target than where it hit
+  the wall. This means the distance at which the robot gets blocked keeps
+  shrinking, so it can only get blocked a finite number of times and on a
+  maze generated by the primGenerator following the wall will always
+  eventually reach the target.
+*/
+
+public class PledgeController implements IRobotController, StepController {
+  // The absolute headings in clockwise order
+  private static final int[] HEADINGS = {
+    IRobot.NORTH, IRobot.EAST, IRobot.SOUTH, IRobot.WEST
+  };
+
+  // The robot in the maze
+  private IRobot robot;
+  // A flag to indicate whether we are looking for a path
+  private volatile boolean active = false;
+  // A value (in ms) indicating how long we should wait
+  // between moves
+  private volatile int delay;
+  // A flag to indicate whether the robot is on the target
+  private boolean arrived;
+  // The robot's location and target after the last move
+  private Point location;
+  private Point target;
+  // A flag to indicate whether the robot is following a wall
+  private boolean following = false;
+  // The heading the robot was trying to move in when it hit the wall
+  private int mainHeading;
+  // The number of quarter turns made while following the wall, left
+  // turns count as +1 and right turns as -1
+  private int turns;
+  // The distance to the target from the square where the robot hit the wall
+  private int hitDistance;
+  // The closest distance to the target at which the robot has hit a wall
+  private int bestHitDistance;
+  // A flag to indicate whether the Pledge exit may be used for this wall
+  private boolean pledgeExit;
+
+  // This method is called when the "start" button is clicked
+  // in the user interface
+  public void start() {
+    // Set flag to start looking for a path
+    this.active = true;
+    begin();
+    // Let the run be watched over JMX while it lasts
+    ControllerMonitor monitor = ControllerMonitor.watch(this);
+    try {
+      // Loop while we haven't found the exit and the agent
+      // has not been interrupted
+      boolean running = !arrived;
+      while(running && active) {
+        // Make one move either towards the target or along a wall
+        running = step();
+        monitor.update(location, target, robot.getSteps(), following ? "following wall" : "homing");
+
+        // Wait for a while if we are supposed to
+        if (delay > 0) {
+          robot.sleep(delay);
+        }
+      }
+    } finally {
+      monitor.unregister();
+    }
+  }
+
+  // This method forgets any wall followed during a previous run and
+  // notes whether the robot starts on the target
+  public void begin() {
+    location = robot.getLocation();
+    target = robot.getTargetLocation();
+    arrived = location.equals(target);
+    following = false;
+    bestHitDistance = Integer.MAX_VALUE;
+  }
+
+  // This method makes a single move, homing in on the target if the way
+  // is clear or following the wall otherwise, and returns whether the
+  // robot still has to reach the target
+  public boolean step() {
+    if (arrived) {
+      return false;
+    }
+    if (following) {
+      followWall();
+    } else {
+      homeIn();
+    }
+    location = robot.getLocation();
+    target = robot.getTargetLocation();
+    arrived = location.equals(target);
+    return !arrived;
+  }
+
+  // This method moves the robot one step towards the target or starts
+  // following the wall if both directions towards the target are blocked
+  private void homeIn() {
+    int heading = targetHeading();
+    if (heading != 0) {
+      robot.setHeading(heading);
+      robot.advance();
+      return;
+    }
+
+    // Remember where the wall was hit so we can tell later whether the
+    // robot has got any closer to the target
+    following = true;
+    turns = 0;
+    mainHeading = preferredHeading();
+    hitDistance = distanceToTarget();
+    pledgeExit = hitDistance < bestHitDistance;
+    bestHitDistance = Math.min(bestHitDistance, hitDistance);
+
+    // Turn right until the way ahead is clear so that the wall is on the
+    // left of the robot and step away from it
+    robot.setHeading(mainHeading);
+    while (robot.look(IRobot.AHEAD) == IRobot.WALL) {
+      turn(-1);
+    }
+    robot.advance();
+  }
+
+  // This method moves the robot one step along the wall on its left
+  // unless it is time to leave the wall and home in on the target again
+  private void followWall() {
+    int distance = distanceToTarget();
+
+    // Pledge exit: the turns have unwound so carry on in the main heading
+    if (pledgeExit && turns == 0 && lookHeading(mainHeading) != IRobot.WALL) {
+      following = false;
+      robot.setHeading(mainHeading);
+      robot.advance();
+      return;
+    }
+    // Leave the wall if the robot has got closer to the target than where
+    // it hit the wall and there is a clear path towards the target
+    if (distance < hitDistance && targetHeading() != 0) {
+      following = false;
+      homeIn();
+      return;
+    }
+
+    // Keep the wall on the left, turning as little as possible
+    if (robot.look(IRobot.LEFT) != IRobot.WALL) {
+      turn(1);
+    } else if (robot.look(IRobot.AHEAD) != IRobot.WALL) {
+      // Carry straight on
+    } else if (robot.look(IRobot.RIGHT) != IRobot.WALL) {
+      turn(-1);
+    } else {
+      turn(-2);
+    }
+    robot.advance();
+  }
+
+  // This method returns a heading towards the target that isn't blocked
+  // by a wall, preferring the axis the target is furthest away along, or
+  // 0 if both directions towards the target are blocked
+  public int targetHeading() {
+    int vertical = verticalHeading();
+    int horizontal = horizontalHeading();
+    int first = vertical;
+    int second = horizontal;
+    if (horizontalDistance() > verticalDistance()) {
+      first = horizontal;
+      second = vertical;
+    }
+
+    if (first != 0 && lookHeading(first) != IRobot.WALL) {
+      return first;
+    } else if (second != 0 && lookHeading(second) != IRobot.WALL) {
+      return second;
+    }
+    return 0;
+  }
+
+  // This method returns the heading towards the target along the axis the
+  // target is furthest away along, ignoring any walls
+  private int preferredHeading() {
+    if (horizontalDistance() > verticalDistance()) {
+      return horizontalHeading();
+    }
+    return verticalHeading();
+  }
+
+  // This method returns north or south depending on where the target
+  // is, or 0 if the target is level with the robot
+  private int verticalHeading() {
+    Point location = robot.getLocation();
+    Point target = robot.getTargetLocation();
+    if (target.y < location.y) {
+      return IRobot.NORTH;
+    } else if (target.y > location.y) {
+      return IRobot.SOUTH;
+    }
+    return 0;
+  }
+
+  // This method returns east or west depending on where the target
+  // is, or 0 if the target is level with the robot
+  private int horizontalHeading() {
+    Point location = robot.getLocation();
+    Point target = robot.getTargetLocation();
+    if (target.x > location.x) {
+      return IRobot.EAST;
+    } else if (target.x < location.x) {
+      return IRobot.WEST;
+    }
+    return 0;
+  }
+
+  // This method returns the number of rows between the robot and target
+  private int verticalDistance() {
+    return Math.abs(robot.getLocation().y - robot.getTargetLocation().y);
+  }
+
+  // This method returns the number of columns between the robot and target
+  private int horizontalDistance() {
+    return Math.abs(robot.getLocation().x - robot.getTargetLocation().x);
+  }
+
+  // This method returns the number of steps to the target if there
+  // were no walls in the way
+  public int distanceToTarget() {
+    return verticalDistance() + horizontalDistance();
+  }
+
+  // This method returns the type of square in the absolute direction given
+  // as argument without changing the heading of the robot
+  public int lookHeading(int absoluteDirection) {
+    int heading = robot.getHeading();
+    robot.setHeading(absoluteDirection);
+    int type = robot.look(IRobot.AHEAD);
+    robot.setHeading(heading);
+    return type;
+  }
+
+  // This method turns the robot by the given number of quarter turns,
+  // positive numbers turning left, and adds them to the turn counter
+  private void turn(int quarterTurns) {
+    int index = 0;
+    while (HEADINGS[index] != robot.getHeading()) {
+      index++;
+    }
+    robot.setHeading(HEADINGS[(index - quarterTurns + 8) % 4]);
+    turns += quarterTurns;
+  }
+
+  // This method returns whether the robot is currently following a wall
+  public boolean isFollowingWall() {
+    return following;
+  }
+
+  // This method returns the net number of quarter turns made while
+  // following the current wall
+  public int getTurns() {
+    return turns;
+  }
+
+  // this method returns a description of this controller
+  public String getDescription() {
+    return "A controller which homes in on the target and follows walls";
+  }
+
+  // sets the delay
+  public void setDelay(int millis) {
+    delay = millis;
+  }
+
+  // gets the current delay
+  public int getDelay() {
+    return delay;
+  }
+
+  // stops the controller
+  public void reset() {
+    active = false;
+  }
+
+  // sets the reference to the robot
+  public void setRobot(IRobot robot) {
+    this.robot = robot;
+  }
+}
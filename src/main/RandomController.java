@@ -1,35 +1,120 @@
 import uk.ac.warwick.dcs.maze.logic.*;
 import java.awt.Point;
+import java.util.Random;
 
 /*
   This controller uses the generation of random numbers to control the robots
   movements. It is because of this random behaviour that the robot will always
   find the end of the maze providing it is not blocked off by walls. The
   downside to this controller is it can take a long time to reach the end.
+  The random numbers come from a generator that can be given a seed so that
+  runs can be repeated and many runs can be made in parallel.
+
+  Most moves just carry on forwards, which needs a random number each time.
+  In fast-forward mode the controller instead draws how many squares it will
+  go straight on before turning, which has a geometric distribution, cut
+  short at a wall or the target. It then makes those moves one per step,
+  followed by the random move. The moves made and logged have the same
+  distribution as before, but a corridor only costs one random number, and
+  each step is still exactly one move.
 */
 
-public class RandomController implements IRobotController {
+public class RandomController implements IRobotController, StepController {
+  // The chance of picking a new direction when the way ahead is clear
+  private static final double TURN_CHANCE = 0.125;
+  // The log of the chance of carrying on forwards
+  private static final double LOG_STRAIGHT = Math.log(1 - TURN_CHANCE);
+
   // The robot in the maze
   private IRobot robot;
   // A flag to indicate whether we are looking for a path
-  private boolean active = false;
+  private volatile boolean active = false;
   // A value (in ms) indicating how long we should wait
   // between moves
-  private int delay;
+  private volatile int delay;
+  // A flag to indicate whether the robot is on the target
+  private boolean arrived;
+  // The robot's location and target after the last move
+  private Point location;
+  private Point target;
   // The direction the robot is facing
   private int direction;
+  // The source of random numbers
+  private final Random random;
+  // The run lengths of the maze in fast-forward mode, or null to
+  // decide every move separately
+  private RunLengthTable fastForward;
+  // The number of squares left to carry straight on in fast-forward mode
+  // before the random move, or -1 if the next run is still to be drawn
+  private int straight = -1;
+
+  public RandomController() {
+    this.random = new Random();
+  }
+
+  public RandomController(long seed) {
+    this.random = new Random(seed);
+  }
 
   // This method is called when the "start" button is clicked
   // in the user interface
   public void start() {
     // Set flag to start looking for a path
     this.active = true;
-    // Loop while we haven't found the exit and the agent
-    // has not been interrupted
-    while(!robot.getLocation().equals(robot.getTargetLocation()) && active) {
+    begin();
+    // Let the run be watched over JMX while it lasts
+    ControllerMonitor monitor = ControllerMonitor.watch(this);
+    try {
+      // Loop while we haven't found the exit and the agent
+      // has not been interrupted
+      boolean running = !arrived;
+      while(running && active) {
+        // Make one random move
+        running = step();
+        monitor.update(location, target, robot.getSteps(), fastForward != null ? "fast-forward" : "random");
+
+        // wait for a while if we are supposed to
+        if (delay > 0) {
+          robot.sleep(delay);
+        }
+      }
+    } finally {
+      monitor.unregister();
+    }
+  }
+
+  // This method notes whether the robot starts on the target
+  public void begin() {
+    straight = -1;
+    location = robot.getLocation();
+    target = robot.getTargetLocation();
+    arrived = location.equals(target);
+  }
+
+  // This method makes one move and returns whether the robot still has
+  // to reach the target
+  public boolean step() {
+    if (arrived) {
+      return false;
+    }
+    if (fastForward != null) {
+      // Draw how far to go straight on at the start of each run, then
+      // make the moves of the run and the random move after it in turn
+      if (straight < 0) {
+        straight = runAhead();
+      }
+      if (straight > 0) {
+        straight--;
+        robot.advance();
+        robot.getLogger().log(IRobot.AHEAD);
+      } else {
+        straight = -1;
+        randMove();
+      }
+    } else {
       // Move in a random direction on average every one in eight moves or
       // if there is a wall in front of the robot otherwise carry on fowards
-      if (robot.look(IRobot.AHEAD) == IRobot.WALL || Math.random() < 0.125) {
+      if (robot.look(IRobot.AHEAD) == IRobot.WALL || random.nextDouble() < TURN_CHANCE) {
         // Move in a random direction and log the movement
         randMove();
       } else {
@@ -37,12 +122,44 @@ public class RandomController implements IRobotController {
         robot.advance();
         robot.getLogger().log(IRobot.AHEAD);
       }
+    }
+    location = robot.getLocation();
+    target = robot.getTargetLocation();
+    arrived = location.equals(target);
+    return !arrived;
+  }
 
-      // wait for a while if we are supposed to
-      if (delay > 0) {
-        robot.sleep(delay);
-      }
+  // This method returns how many squares the robot carries straight on
+  // for before it moves in a random direction, the same as it would have
+  // gone one move at a time. The run stops at a wall or at the target, and
+  // the robot stops there too if it is the target.
+  private int runAhead() {
+    int heading = robot.getHeading();
+    int moves = fastForward.run(location.x, location.y, heading);
+    if (moves == 0) {
+      // There is a wall ahead
+      return 0;
     }
+    // Every square the robot carries on is a one in eight chance of
+    // turning that didn't come up, so the number of them is geometric
+    int straight = (int) (Math.log(1 - random.nextDouble()) / LOG_STRAIGHT);
+    return Math.min(moves, Math.min(straight, distanceAhead(location, heading)));
+  }
+
+  // This method returns how many squares the target is straight ahead of
+  // the location in the given heading, or the largest int if it isn't
+  private int distanceAhead(Point location, int heading) {
+    Point target = robot.getTargetLocation();
+    if (heading == IRobot.NORTH && target.x == location.x && target.y < location.y) {
+      return location.y - target.y;
+    } else if (heading == IRobot.EAST && target.y == location.y && target.x > location.x) {
+      return target.x - location.x;
+    } else if (heading == IRobot.SOUTH && target.x == location.x && target.y > location.y) {
+      return target.y - location.y;
+    } else if (heading == IRobot.WEST && target.y == location.y && target.x < location.x) {
+      return location.x - target.x;
+    }
+    return Integer.MAX_VALUE;
   }
 
   // This method moves the robot in a random direction and logs the movement
@@ -58,7 +175,7 @@ public class RandomController implements IRobotController {
 
       // Generate a random number in the range 0 <= n < 4 and round it down
       // producing an integer between 0-3 (inclusive) with equal probability
-      int rand = (int)Math.floor(Math.random()*4);
+      int rand = (int)Math.floor(random.nextDouble()*4);
 
       // Set direction variable to direction, as determined
       // by the random number that was generated:
@@ -102,6 +219,13 @@ public class RandomController implements IRobotController {
     return "A controller which randomly chooses where to go";
   }
 
+  // This method turns on fast-forward mode using the run lengths of the
+  // maze the robot is in, or turns it off if given null. The table must be
+  // built again if the maze changes.
+  public void setFastForward(RunLengthTable table) {
+    fastForward = table;
+  }
+
   // sets the delay
   public void setDelay(int millis) {
     delay = millis;
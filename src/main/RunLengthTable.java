@@ -0,0 +1,59 @@
+import uk.ac.warwick.dcs.maze.logic.IRobot;
+
+/*
+  This class records, for every square of a grid and each of the four
+  headings, how many passable squares there are in a straight line ahead
+  before the next wall. Each entry follows from its neighbour's, so the
+  whole table takes one sweep along every row and column to build. It lets
+  a controller know how far it can go straight on without looking at each
+  square on the way.
+*/
+public class RunLengthTable {
+  // The width of the grid
+  private final int width;
+  // The length of the run from each square, one array for each heading
+  // in the order north, east, south, west
+  private final int[][] runs;
+
+  public RunLengthTable(Grid grid) {
+    int width = grid.getWidth();
+    int height = grid.getHeight();
+    this.width = width;
+    this.runs = new int[4][width * height];
+    int[] north = runs[0];
+    int[] east = runs[1];
+    int[] south = runs[2];
+    int[] west = runs[3];
+
+    // Each run is one longer than the run from the square ahead, or 0 if
+    // the square ahead is a wall or off the edge
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int square = y * width + x;
+        if (y > 0 && grid.isPassable(x, y - 1)) {
+          north[square] = north[square - width] + 1;
+        }
+        if (x > 0 && grid.isPassable(x - 1, y)) {
+          west[square] = west[square - 1] + 1;
+        }
+      }
+    }
+    for (int y = height - 1; y >= 0; y--) {
+      for (int x = width - 1; x >= 0; x--) {
+        int square = y * width + x;
+        if (y < height - 1 && grid.isPassable(x, y + 1)) {
+          south[square] = south[square + width] + 1;
+        }
+        if (x < width - 1 && grid.isPassable(x + 1, y)) {
+          east[square] = east[square + 1] + 1;
+        }
+      }
+    }
+  }
+
+  // This method returns the number of passable squares straight ahead of
+  // the square when facing in the absolute heading given
+  public int run(int x, int y, int heading) {
+    return runs[heading - IRobot.NORTH][y * width + x];
+  }
+}
@@ -0,0 +1,125 @@
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+  This class generates mazes in the same style as the primGenerator and the
+  loopyGenerator but takes a seed, so the same seed and size always give the
+  same maze. The squares with odd coordinates are rooms, and the squares
+  between two rooms are opened up to join them. A Prim maze joins the rooms
+  into a tree using Prim's algorithm with a random frontier. A loopy maze
+  starts as a Prim maze and then opens up some of the remaining walls
+  between rooms so that there is more than one way round. The start is in
+  the top left room and the finish in the bottom right room. An open maze
+  has no walls except around the edge and a random start and finish. An
+  Eller maze is a tree like a Prim maze but is made by the EllerGenerator.
+*/
+public class SeededMazeGenerator {
+  // The kinds of maze that can be generated, as stored in a corpus
+  public static final int PRIM = 0;
+  public static final int LOOPY = 1;
+  public static final int OPEN = 2;
+  public static final int ELLER = 3;
+
+  // The chance of opening each remaining wall between rooms in a loopy maze
+  private static final double LOOP_CHANCE = 0.125;
+
+  // do not allow this class to be instantiated
+  private SeededMazeGenerator() {}
+
+  // This method returns a maze of the given kind with the given number of
+  // columns and rows, which must both be odd and at least 3
+  public static Maze generate(int kind, int columns, int rows, long seed) {
+    if (columns < 3 || rows < 3 || columns % 2 == 0 || rows % 2 == 0) {
+      throw new IllegalArgumentException("columns and rows must be odd and at least 3");
+    }
+    if (kind != PRIM && kind != LOOPY && kind != OPEN && kind != ELLER) {
+      throw new IllegalArgumentException("unknown kind of maze: " + kind);
+    }
+    if (kind == ELLER) {
+      return new EllerGenerator(columns, rows, seed).toMaze();
+    }
+    Random random = new Random(seed);
+    Maze maze = new Maze(columns, rows);
+    for (int x = 0; x < columns; x++) {
+      for (int y = 0; y < rows; y++) {
+        boolean edge = x == 0 || y == 0 || x == columns - 1 || y == rows - 1;
+        maze.setCellType(x, y, (kind == OPEN && !edge) ? Maze.PASSAGE : Maze.WALL);
+      }
+    }
+
+    // An open maze only needs a start and finish
+    if (kind == OPEN) {
+      maze.setStart(1 + random.nextInt(columns - 2), 1 + random.nextInt(rows - 2));
+      maze.setFinish(1 + random.nextInt(columns - 2), 1 + random.nextInt(rows - 2));
+      return maze;
+    }
+
+    // Join the rooms into a tree, picking a random wall between a room in
+    // the tree and one outside it each time
+    int roomColumns = columns / 2;
+    int roomRows = rows / 2;
+    boolean[] inTree = new boolean[roomColumns * roomRows];
+    List<int[]> frontier = new ArrayList<int[]>();
+    inTree[0] = true;
+    maze.setCellType(1, 1, Maze.PASSAGE);
+    addFrontier(frontier, 0, roomColumns, roomRows);
+    while (!frontier.isEmpty()) {
+      // Swap the chosen wall to the end so removing it is cheap
+      int pick = random.nextInt(frontier.size());
+      int[] wall = frontier.get(pick);
+      frontier.set(pick, frontier.get(frontier.size() - 1));
+      frontier.remove(frontier.size() - 1);
+
+      int room = wall[1];
+      if (inTree[room]) {
+        continue;
+      }
+      inTree[room] = true;
+      int fromX = wall[0] % roomColumns;
+      int fromY = wall[0] / roomColumns;
+      int toX = room % roomColumns;
+      int toY = room / roomColumns;
+      maze.setCellType(2 * toX + 1, 2 * toY + 1, Maze.PASSAGE);
+      maze.setCellType(fromX + toX + 1, fromY + toY + 1, Maze.PASSAGE);
+      addFrontier(frontier, room, roomColumns, roomRows);
+    }
+
+    // Open up some of the walls left between rooms to make loops
+    if (kind == LOOPY) {
+      for (int y = 1; y < rows - 1; y++) {
+        for (int x = 1; x < columns - 1; x++) {
+          boolean betweenRooms = (x % 2) != (y % 2);
+          if (betweenRooms && maze.getCellType(x, y) == Maze.WALL
+              && random.nextDouble() < LOOP_CHANCE) {
+            maze.setCellType(x, y, Maze.PASSAGE);
+          }
+        }
+      }
+    }
+
+    maze.setStart(1, 1);
+    maze.setFinish(columns - 2, rows - 2);
+    return maze;
+  }
+
+  // This method adds the walls from the room to each of its neighbours
+  private static void addFrontier(List<int[]> frontier, int room,
+      int roomColumns, int roomRows) {
+    int x = room % roomColumns;
+    int y = room / roomColumns;
+    if (y > 0) {
+      frontier.add(new int[] {room, room - roomColumns});
+    }
+    if (x < roomColumns - 1) {
+      frontier.add(new int[] {room, room + 1});
+    }
+    if (y < roomRows - 1) {
+      frontier.add(new int[] {room, room + roomColumns});
+    }
+    if (x > 0) {
+      frontier.add(new int[] {room, room - 1});
+    }
+  }
+}
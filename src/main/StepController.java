@@ -0,0 +1,20 @@
+import uk.ac.warwick.dcs.maze.logic.IRobot;
+
+/*
+  This interface is implemented by controllers that can make their moves
+  one at a time instead of looping until the target is found. Everything a
+  controller needs between moves is kept in its fields, so a StepScheduler
+  can run many of them on a few threads by calling step on each in turn.
+*/
+public interface StepController {
+  // sets the reference to the robot
+  void setRobot(IRobot robot);
+
+  // This method gets the controller ready for a new run, the same as
+  // the start of a call to start()
+  void begin();
+
+  // This method makes a single move and returns whether the robot still
+  // has to reach the target
+  boolean step();
+}
@@ -0,0 +1,256 @@
+import uk.ac.warwick.dcs.maze.logic.*;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  This class runs many StepControllers on a small fixed number of worker
+  threads, so that thousands of robots don't each need a thread of their
+  own. The robots wait in a single queue. A worker takes the robot at the
+  front, makes up to a slice of moves with it and puts it on the back of
+  the queue if it hasn't reached the target yet, so every robot gets a turn
+  before any robot gets a second one.
+
+  Some robots never reach their target, such as a HomingController stuck
+  behind a wall or any robot whose target is walled off, so each robot can
+  be given a budget of moves, after which it is given up on. A robot whose
+  controller throws an exception is given up on too, and the exception is
+  kept. Calling stop makes run return without waiting for the rest, and a
+  scheduler that has been stopped stays stopped, so stop can be called
+  before run starts.
+
+  When the queue is empty the remaining robots are all being moved by
+  other workers, so a worker that finds it empty waits until a robot is put
+  back, rather than spinning. That way workers with no robots left to run,
+  such as when there are fewer robots than workers or at the end of a run,
+  don't each keep a core busy.
+*/
+public class StepScheduler {
+  // The number of worker threads
+  private final int workers;
+  // The most moves a robot makes before going to the back of the queue
+  private final int slice;
+  // The most moves each robot makes before it is given up on
+  private long budget = Long.MAX_VALUE;
+  // The robots waiting for a turn
+  private final Queue<Entry> queue = new ConcurrentLinkedQueue<Entry>();
+  // The number of robots still being run
+  private final AtomicInteger running = new AtomicInteger();
+  // The number of robots given up on because they ran out of moves
+  private final AtomicInteger exhausted = new AtomicInteger();
+  // The exceptions thrown by controllers that were given up on
+  private final Queue<RuntimeException> failures = new ConcurrentLinkedQueue<RuntimeException>();
+  // The total number of moves made
+  private final AtomicLong moves = new AtomicLong();
+  // A flag to indicate whether run should return straight away
+  private volatile boolean stopped;
+  // The number of workers waiting for a robot to be put back, and the
+  // lock they wait on
+  private final AtomicInteger idle = new AtomicInteger();
+  private final Object lock = new Object();
+
+  // This class is a controller in the queue with the number of moves it
+  // has made so far
+  private static final class Entry {
+    final StepController controller;
+    long moves;
+
+    Entry(StepController controller) {
+      this.controller = controller;
+    }
+  }
+
+  public StepScheduler(int workers, int slice) {
+    if (workers < 1 || slice < 1) {
+      throw new IllegalArgumentException("workers and slice must be positive");
+    }
+    this.workers = workers;
+    this.slice = slice;
+  }
+
+  // This method sets the most moves each robot may make before it is
+  // given up on
+  public void setMoveBudget(long budget) {
+    if (budget < 1) {
+      throw new IllegalArgumentException("budget must be positive");
+    }
+    this.budget = budget;
+  }
+
+  // This method adds a controller, which must already have its robot set,
+  // to be run the next time run is called
+  public void add(StepController controller) {
+    controller.begin();
+    running.incrementAndGet();
+    queue.add(new Entry(controller));
+  }
+
+  // This method runs every controller until its robot reaches the target
+  // or is given up on, returning when they all have or stop is called
+  public void run() throws InterruptedException {
+    final CountDownLatch done = new CountDownLatch(workers);
+    Thread[] threads = new Thread[workers];
+    for (int i = 0; i < workers; i++) {
+      threads[i] = new Thread(() -> {
+        try {
+          work();
+        } finally {
+          done.countDown();
+        }
+      }, "step-worker-" + i);
+      threads[i].setDaemon(true);
+      threads[i].start();
+    }
+    done.await();
+  }
+
+  // This method is run by each worker, giving robots their turns until
+  // every robot has finished or been given up on
+  private void work() {
+    while (running.get() > 0 && !stopped) {
+      Entry entry = queue.poll();
+      if (entry == null) {
+        // The other workers have the remaining robots
+        await();
+        continue;
+      }
+
+      // Make up to a slice of moves, or fewer if the budget runs out
+      long limit = Math.min(slice, budget - entry.moves);
+      boolean going = true;
+      int made = 0;
+      try {
+        while (going && made < limit) {
+          made++;
+          going = entry.controller.step();
+        }
+      } catch (RuntimeException e) {
+        // Give up on a robot whose controller fails
+        failures.add(e);
+        moves.addAndGet(made);
+        finish();
+        continue;
+      }
+      entry.moves += made;
+      moves.addAndGet(made);
+
+      // Put the robot back if it still has further to go and moves left
+      if (!going) {
+        finish();
+      } else if (entry.moves >= budget) {
+        exhausted.incrementAndGet();
+        finish();
+      } else {
+        queue.add(entry);
+        // Wake a waiting worker, if there is one, to take it
+        if (idle.get() > 0) {
+          synchronized (lock) {
+            lock.notify();
+          }
+        }
+      }
+    }
+  }
+
+  // This method waits until a robot is put back on the queue, every
+  // robot has finished or the scheduler is stopped. A worker counts
+  // itself as idle before looking at the queue, so a robot put back after
+  // the look always sees it and wakes it.
+  private void await() {
+    idle.incrementAndGet();
+    try {
+      synchronized (lock) {
+        while (queue.isEmpty() && running.get() > 0 && !stopped) {
+          lock.wait();
+        }
+      }
+    } catch (InterruptedException e) {
+      // Only the scheduler has the workers, so treat it as a stop
+      Thread.currentThread().interrupt();
+      stopped = true;
+    } finally {
+      idle.decrementAndGet();
+    }
+  }
+
+  // This method counts a robot as no longer being run, and wakes every
+  // waiting worker once there are none left so that they can return
+  private void finish() {
+    if (running.decrementAndGet() == 0) {
+      wakeAll();
+    }
+  }
+
+  // This method wakes every waiting worker
+  private void wakeAll() {
+    synchronized (lock) {
+      lock.notifyAll();
+    }
+  }
+
+  // This method makes run return once each worker has finished the
+  // slice it is making, leaving the remaining robots where they are. Once
+  // stopped, the scheduler doesn't run any more moves.
+  public void stop() {
+    stopped = true;
+    wakeAll();
+  }
+
+  // This method returns the number of robots that haven't reached the
+  // target, whether they are still to be run or were given up on
+  public int getUnfinished() {
+    return running.get() + exhausted.get() + failures.size();
+  }
+
+  // This method returns the number of robots given up on because they
+  // used up their budget of moves
+  public int getExhausted() {
+    return exhausted.get();
+  }
+
+  // This method returns the exceptions thrown by the controllers that
+  // were given up on because they failed
+  public List<RuntimeException> getFailures() {
+    return new ArrayList<RuntimeException>(failures);
+  }
+
+  // This method returns the total number of moves made, counting the call
+  // to step that finds a robot already on its target as a move
+  public long getMoves() {
+    return moves.get();
+  }
+
+  // the main entry point, which runs 100,000 homing robots to random
+  // targets on an open maze and prints how long it takes
+  public static void main(String args[]) throws InterruptedException {
+    int robots = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    int threads = Runtime.getRuntime().availableProcessors();
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.OPEN, 101, 101, 118L);
+    Random random = new Random(118L);
+
+    StepScheduler scheduler = new StepScheduler(threads, 16);
+    for (int i = 0; i < robots; i++) {
+      RobotImpl robot = new RobotImpl();
+      robot.setMaze(maze);
+      robot.setTargetLocation(new Point(1 + random.nextInt(99), 1 + random.nextInt(99)));
+      HomingController controller = new HomingController();
+      controller.setRobot(robot);
+      scheduler.add(controller);
+    }
+
+    Runtime runtime = Runtime.getRuntime();
+    long used = runtime.totalMemory() - runtime.freeMemory();
+    long begin = System.nanoTime();
+    scheduler.run();
+    long elapsed = System.nanoTime() - begin;
+    System.out.printf("%d robots on %d threads: %d moves in %.0f ms (%.0f moves/s), %.0f MB heap%n",
+      robots, threads, scheduler.getMoves(), elapsed / 1e6,
+      scheduler.getMoves() / (elapsed / 1e9), used / 1e6);
+  }
+}
@@ -0,0 +1,175 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.IRobot;
+import uk.ac.warwick.dcs.maze.logic.IRobotController;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import uk.ac.warwick.dcs.maze.logic.RobotImpl;
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+  This class contains unit tests for the ControllerMonitor class and the
+  way the controllers publish their progress through it.
+*/
+public class ControllerMonitorTest {
+  /*
+    Tests whether the monitor shows the robot's progress as it moves.
+  */
+  @Test(timeout=10000)
+  public void updateTest() {
+    Maze maze = PlannerBenchmark.openMaze(11, 11);
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    HomingController controller = new HomingController();
+    controller.setRobot(robot);
+    ControllerMonitor monitor = new ControllerMonitor(controller);
+    monitor.register();
+
+    // Move part of the way and publish each step
+    try {
+      for (int i = 0; i < 5; i++) {
+        controller.step();
+        monitor.update(robot.getLocation(), robot.getTargetLocation(), robot.getSteps(), "homing");
+      }
+
+      assertEquals("Wrong position",
+        robot.getLocation().x + "," + robot.getLocation().y, monitor.getPosition());
+      assertEquals("Wrong steps", 5, monitor.getSteps());
+      assertEquals("Wrong best distance", 16 - 5, monitor.getBestDistance());
+      assertEquals("Wrong mode", "homing", monitor.getMode());
+      assertTrue("Steps per second isn't positive", monitor.getStepsPerSecond() > 0);
+      assertEquals("Wrong controller", "HomingController", monitor.getController());
+    } finally {
+      monitor.unregister();
+    }
+  }
+
+  /*
+    Tests whether a monitor that isn't registered doesn't publish anything
+    but still keeps the best distance for when it is.
+  */
+  @Test(timeout=10000)
+  public void unregisteredTest() {
+    Maze maze = PlannerBenchmark.openMaze(11, 11);
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    HomingController controller = new HomingController();
+    controller.setRobot(robot);
+    ControllerMonitor monitor = new ControllerMonitor(controller);
+
+    // Move most of the way without being registered
+    for (int i = 0; i < 10; i++) {
+      controller.step();
+      monitor.update(robot.getLocation(), robot.getTargetLocation(), robot.getSteps(), "homing");
+    }
+    assertEquals("Steps are published before registering", 0, monitor.getSteps());
+    assertEquals("Mode is published before registering", "starting", monitor.getMode());
+
+    // Take a step back, so the best distance is from before registering
+    robot.setHeading(IRobot.NORTH);
+    robot.advance();
+    monitor.register();
+    try {
+      monitor.update(robot.getLocation(), robot.getTargetLocation(), robot.getSteps(), "homing");
+      assertEquals("Wrong steps", 11, monitor.getSteps());
+      assertEquals("Wrong best distance", 16 - 10, monitor.getBestDistance());
+      assertEquals("Wrong mode", "homing", monitor.getMode());
+    } finally {
+      monitor.unregister();
+    }
+  }
+
+  /*
+    Tests whether a running controller can be found, slowed down and
+    stopped through the platform MBean server, and is removed afterwards.
+  */
+  @Test(timeout=20000)
+  public void remoteControlTest() throws Exception {
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.PRIM, 41, 41, 118L);
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    // Put the target where it can't be reached so the run never ends
+    robot.setTargetLocation(new Point(0, 0));
+    RandomController controller = new RandomController(118L);
+    controller.setRobot(robot);
+    Thread runner = new Thread(controller::start);
+    runner.start();
+
+    // Wait for the controller to show up
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName pattern = new ObjectName("cs118:type=Controller,name=RandomController,*");
+    Set<ObjectName> names = server.queryNames(pattern, null);
+    while (names.isEmpty()) {
+      Thread.sleep(10);
+      names = server.queryNames(pattern, null);
+    }
+    ObjectName name = names.iterator().next();
+
+    // Read its progress and change its delay
+    while ((Long) server.getAttribute(name, "Steps") == 0) {
+      Thread.sleep(10);
+    }
+    assertEquals("Wrong mode", "random", server.getAttribute(name, "Mode"));
+    server.setAttribute(name, new Attribute("Delay", 5));
+    assertEquals("Delay isn't set on the controller", 5, controller.getDelay());
+
+    // Stop it remotely
+    server.invoke(name, "reset", null, null);
+    runner.join();
+    assertFalse(
+      "Monitor is still registered after the run",
+      server.isRegistered(name));
+  }
+
+  /*
+    Tests whether the planning controllers can be found and stopped
+    through the platform MBean server while they follow a path.
+  */
+  @Test(timeout=20000)
+  public void plannerControllersTest() throws Exception {
+    Maze maze = PlannerBenchmark.openMaze(101, 101);
+    IRobotController[] controllers = {
+      new PlannerController(), new PipelinedPlannerController()
+    };
+    for (IRobotController controller : controllers) {
+      RobotImpl robot = new RobotImpl();
+      robot.setMaze(maze);
+      if (controller instanceof PlannerController) {
+        ((PlannerController) controller).setMaze(maze);
+      } else {
+        ((PipelinedPlannerController) controller).setMaze(maze);
+      }
+      controller.setRobot(robot);
+      // With a delay the monitor is registered straight away
+      controller.setDelay(5);
+      Thread runner = new Thread(controller::start);
+      runner.start();
+
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName pattern = new ObjectName("cs118:type=Controller,name="
+        + controller.getClass().getSimpleName() + ",*");
+      Set<ObjectName> names = server.queryNames(pattern, null);
+      while (names.isEmpty()) {
+        Thread.sleep(10);
+        names = server.queryNames(pattern, null);
+      }
+      ObjectName name = names.iterator().next();
+      while (!"following path".equals(server.getAttribute(name, "Mode"))) {
+        Thread.sleep(10);
+      }
+
+      server.invoke(name, "reset", null, null);
+      runner.join();
+      assertFalse(
+        controller.getClass().getSimpleName() + " doesn't stop",
+        robot.getLocation().equals(robot.getTargetLocation()));
+      assertFalse(
+        "Monitor is still registered after the run",
+        server.isRegistered(name));
+    }
+  }
+}
@@ -0,0 +1,165 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import java.util.Random;
+
+/*
+  This class contains unit tests for the DistanceField class and the
+  ObservableMaze and FieldPlanner classes that use it.
+*/
+public class DistanceFieldTest {
+  /*
+    Tests whether a field repaired after each of many random changes
+    always matches a field worked out from scratch.
+  */
+  @Test(timeout=20000)
+  public void matchesRecomputeTest() {
+    for (int kind = SeededMazeGenerator.PRIM; kind <= SeededMazeGenerator.OPEN; kind++) {
+      ObservableMaze maze = ObservableMaze.copyOf(
+        SeededMazeGenerator.generate(kind, 21, 21, 118L + kind));
+      Grid grid = new MazeGrid(maze);
+      DistanceField field = new DistanceField(grid, 9, 9);
+      maze.addCellListener(field);
+      Random random = new Random(kind);
+
+      // Toggle random squares inside the edge, sometimes the target
+      for (int i = 0; i < 1000; i++) {
+        int x = (i % 50 == 0) ? 9 : 1 + random.nextInt(19);
+        int y = (i % 50 == 0) ? 9 : 1 + random.nextInt(19);
+        int type = (maze.getCellType(x, y) == Maze.WALL) ? Maze.PASSAGE : Maze.WALL;
+        maze.setCellType(x, y, type);
+
+        DistanceField expected = new DistanceField(grid, 9, 9);
+        for (int sx = 0; sx < 21; sx++) {
+          for (int sy = 0; sy < 21; sy++) {
+            assertEquals(
+              "Repaired distance doesn't match recomputed distance",
+              expected.distance(sx, sy), field.distance(sx, sy));
+          }
+        }
+      }
+    }
+  }
+
+  /*
+    Tests whether blocking a dead end costs the same on a small maze as
+    on a large one, rather than growing with the maze.
+  */
+  @Test(timeout=20000)
+  public void repairCostTest() {
+    long[] touched = new long[2];
+    int[] sizes = {41, 401};
+    for (int i = 0; i < sizes.length; i++) {
+      int size = sizes[i];
+      ObservableMaze maze = ObservableMaze.copyOf(
+        SeededMazeGenerator.generate(SeededMazeGenerator.PRIM, size, size, 118L));
+      DistanceField field = new DistanceField(new MazeGrid(maze), 1, 1);
+      maze.addCellListener(field);
+      assertTrue(
+        "Building the field doesn't look at the whole maze",
+        field.getTouched() >= (size / 2) * (size / 2));
+
+      // Find a dead end room away from the target and block it
+      int deadEnd = -1;
+      for (int y = 3; y < size - 1 && deadEnd < 0; y += 2) {
+        for (int x = 3; x < size - 1 && deadEnd < 0; x += 2) {
+          if (openNeighbours(maze, x, y) == 1) {
+            deadEnd = y * size + x;
+          }
+        }
+      }
+      maze.setCellType(deadEnd % size, deadEnd / size, Maze.WALL);
+      touched[i] = field.getTouched();
+      assertEquals(
+        "Blocked dead end isn't unreachable", DistanceField.UNREACHABLE,
+        field.distance(deadEnd % size, deadEnd / size));
+    }
+    assertTrue("Repair grows with the maze", touched[0] == touched[1]);
+    assertTrue("Repair looks at too many squares", touched[1] <= 2);
+  }
+
+  /*
+    Tests whether the field planner gives shortest paths after walls
+    change and only rebuilds its field when the goal changes.
+  */
+  @Test(timeout=20000)
+  public void fieldPlannerTest() {
+    ObservableMaze maze = ObservableMaze.copyOf(
+      SeededMazeGenerator.generate(SeededMazeGenerator.LOOPY, 41, 41, 7L));
+    Grid grid = new MazeGrid(maze);
+    FieldPlanner planner = new FieldPlanner(maze);
+    AStarPlanner astar = new AStarPlanner();
+    Random random = new Random(7L);
+
+    planner.plan(grid, 1, 1, 39, 39);
+    long built = planner.getExpansions();
+    for (int i = 0; i < 200; i++) {
+      // Open up a random wall between two rooms
+      int x = 1 + random.nextInt(39);
+      int y = 1 + random.nextInt(39);
+      if ((x % 2) != (y % 2)) {
+        maze.setCellType(x, y, Maze.PASSAGE);
+      }
+
+      int[] expected = astar.plan(grid, 1, 1, 39, 39);
+      int[] path = planner.plan(grid, 1, 1, 39, 39);
+      assertEquals("Field path isn't a shortest path", expected.length, path.length);
+      for (int j = 1; j < path.length; j++) {
+        assertTrue(
+          "Field path goes through a wall",
+          grid.isPassable(path[j] % 41, path[j] / 41));
+        assertEquals(
+          "Field path doesn't move one square at a time", 1,
+          Math.abs(path[j] % 41 - path[j - 1] % 41) + Math.abs(path[j] / 41 - path[j - 1] / 41));
+      }
+      assertTrue("Field is rebuilt for the same goal", planner.getExpansions() < built);
+    }
+  }
+
+  /*
+    Tests whether changes to the maze listened to are left alone once the
+    field planner has planned on a grid of another maze, and whether a
+    closed planner stops listening.
+  */
+  @Test(timeout=10000)
+  public void otherGridTest() {
+    ObservableMaze maze = ObservableMaze.copyOf(
+      SeededMazeGenerator.generate(SeededMazeGenerator.OPEN, 41, 41, 7L));
+    Grid small = new MazeGrid(SeededMazeGenerator.generate(SeededMazeGenerator.OPEN, 11, 11, 7L));
+    FieldPlanner planner = new FieldPlanner(maze);
+
+    // Plan on the small grid, then change the large maze outside it
+    assertEquals("Wrong path on the small grid", 17, planner.plan(small, 1, 1, 9, 9).length);
+    maze.setCellType(31, 31, Maze.WALL);
+    assertEquals("Small grid path changes", 17, planner.plan(small, 1, 1, 9, 9).length);
+
+    // Plan on the large maze, then close the planner, change the maze
+    // and plan again
+    Grid grid = new MazeGrid(maze);
+    planner.plan(grid, 1, 1, 39, 39);
+    planner.close();
+    for (int y = 1; y < 40; y++) {
+      maze.setCellType(20, y, y == 39 ? Maze.PASSAGE : Maze.WALL);
+    }
+    int[] path = planner.plan(grid, 1, 1, 39, 39);
+    assertTrue(
+      "Closed planner doesn't build its field again",
+      planner.getExpansions() >= 39 * 39 - 39);
+    for (int square : path) {
+      assertTrue("Closed planner's path goes through a wall",
+        grid.isPassable(square % 41, square / 41));
+    }
+  }
+
+  // This method returns the number of passages next to the square
+  private int openNeighbours(Maze maze, int x, int y) {
+    int count = 0;
+    int[][] moves = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+    for (int[] move : moves) {
+      if (maze.getCellType(x + move[0], y + move[1]) != Maze.WALL) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,160 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/*
+  This class contains unit tests for the EllerGenerator class.
+*/
+public class EllerGeneratorTest {
+  // The sizes of maze used for testing, as columns and rows
+  private int[][] sizes = {{3, 3}, {3, 41}, {41, 3}, {5, 7}, {41, 31}, {101, 99}};
+
+  /*
+    Tests whether every maze joins all of its rooms with exactly one path.
+  */
+  @Test(timeout=10000)
+  public void perfectMazeTest() {
+    for (int[] size : this.sizes) {
+      for (long seed = 0; seed < 20; seed++) {
+        Maze maze = new EllerGenerator(size[0], size[1], seed).toMaze();
+        int rooms = (size[0] / 2) * (size[1] / 2);
+
+        // A tree joining every room has one passage between rooms fewer
+        // than there are rooms, and every passage can be reached
+        assertEquals("Eller maze isn't a tree", 2 * rooms - 1, passages(maze));
+        assertEquals("Eller maze doesn't reach every room", 2 * rooms - 1, reachable(maze));
+        for (int x = 0; x < maze.getWidth(); x++) {
+          assertTrue("Top edge is open", maze.getCellType(x, 0) == Maze.WALL);
+          assertTrue(
+            "Bottom edge is open",
+            maze.getCellType(x, maze.getHeight() - 1) == Maze.WALL);
+        }
+        for (int y = 0; y < maze.getHeight(); y++) {
+          assertTrue("Left edge is open", maze.getCellType(0, y) == Maze.WALL);
+          assertTrue(
+            "Right edge is open",
+            maze.getCellType(maze.getWidth() - 1, y) == Maze.WALL);
+        }
+      }
+    }
+  }
+
+  /*
+    Tests whether the same seed always gives the same maze and different
+    seeds give different mazes.
+  */
+  @Test(timeout=10000)
+  public void deterministicTest() {
+    boolean[] first = squares(new EllerGenerator(41, 31, 7L).toMaze());
+    boolean[] second = squares(new EllerGenerator(41, 31, 7L).toMaze());
+    boolean[] other = squares(new EllerGenerator(41, 31, 8L).toMaze());
+
+    assertTrue("The same seed doesn't give the same maze", Arrays.equals(first, second));
+    assertFalse("Different seeds give the same maze", Arrays.equals(first, other));
+  }
+
+  /*
+    Tests whether a maze streamed into a corpus reads back the same as the
+    maze the SeededMazeGenerator makes from the same seed.
+  */
+  @Test(timeout=10000)
+  public void streamTest() throws IOException {
+    Path path = Files.createTempFile("eller-corpus", ".bin");
+    path.toFile().deleteOnExit();
+    try (MazeCorpusWriter writer = new MazeCorpusWriter(path)) {
+      for (long seed = 0; seed < 5; seed++) {
+        new EllerGenerator(63, 45, seed).write(writer, SeededMazeGenerator.ELLER, seed);
+      }
+    }
+
+    try (MazeCorpus corpus = MazeCorpus.open(path)) {
+      assertEquals("Wrong number of mazes", 5, corpus.size());
+      for (MappedMaze mapped : corpus.getMazes()) {
+        Maze maze = SeededMazeGenerator.generate(mapped.getKind(),
+          mapped.getWidth(), mapped.getHeight(), mapped.getSeed());
+        assertEquals("Wrong start", maze.getStart(), mapped.getStart());
+        assertEquals("Wrong finish", maze.getFinish(), mapped.getFinish());
+        for (int x = 0; x < maze.getWidth(); x++) {
+          for (int y = 0; y < maze.getHeight(); y++) {
+            assertTrue(
+              "Square read back from the corpus is wrong",
+              mapped.isPassable(x, y) == (maze.getCellType(x, y) != Maze.WALL));
+          }
+        }
+      }
+    }
+  }
+
+  /*
+    Tests whether a generator can't be written out after some of its rows
+    have already been handed out.
+  */
+  @Test(timeout=10000)
+  public void startedTest() {
+    EllerGenerator generator = new EllerGenerator(11, 11, 1L);
+    generator.nextRow();
+    try {
+      generator.toMaze();
+      fail("A partly generated maze was turned into a Maze");
+    } catch (IllegalStateException e) {
+      // This is expected
+    }
+  }
+
+  // This method returns the number of passages in the maze
+  private int passages(Maze maze) {
+    int count = 0;
+    for (int x = 0; x < maze.getWidth(); x++) {
+      for (int y = 0; y < maze.getHeight(); y++) {
+        if (maze.getCellType(x, y) != Maze.WALL) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  // This method returns the number of passages that can be reached from
+  // the start of the maze
+  private int reachable(Maze maze) {
+    int width = maze.getWidth();
+    boolean[] seen = new boolean[width * maze.getHeight()];
+    Deque<Integer> queue = new ArrayDeque<Integer>();
+    int start = maze.getStart().y * width + maze.getStart().x;
+    seen[start] = true;
+    queue.add(start);
+    int count = 0;
+    int[][] moves = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+    while (!queue.isEmpty()) {
+      int square = queue.poll();
+      count++;
+      for (int[] move : moves) {
+        int x = square % width + move[0];
+        int y = square / width + move[1];
+        int next = y * width + x;
+        if (maze.getCellType(x, y) != Maze.WALL && !seen[next]) {
+          seen[next] = true;
+          queue.add(next);
+        }
+      }
+    }
+    return count;
+  }
+
+  // This method returns whether each square of the maze is a passage
+  private boolean[] squares(Maze maze) {
+    boolean[] squares = new boolean[maze.getWidth() * maze.getHeight()];
+    for (int x = 0; x < maze.getWidth(); x++) {
+      for (int y = 0; y < maze.getHeight(); y++) {
+        squares[y * maze.getWidth() + x] = maze.getCellType(x, y) != Maze.WALL;
+      }
+    }
+    return squares;
+  }
+}
@@ -0,0 +1,85 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import java.util.Random;
+
+/*
+  This class contains unit tests for the LandmarkPlanner class and the
+  LandmarkTable it uses.
+*/
+public class LandmarkPlannerTest {
+  /*
+    Tests whether the landmark planner finds paths as short as plain A*
+    while expanding far fewer squares on Prim mazes.
+  */
+  @Test(timeout=20000)
+  public void fewerExpansionsTest() {
+    Grid grid = new MazeGrid(SeededMazeGenerator.generate(SeededMazeGenerator.PRIM, 81, 81, 118L));
+    AStarPlanner astar = new AStarPlanner();
+    LandmarkPlanner landmark = new LandmarkPlanner(new LandmarkTable(grid, 8));
+    Random random = new Random(118L);
+    long astarExpansions = 0;
+    long landmarkExpansions = 0;
+
+    for (int i = 0; i < 200; i++) {
+      int sx = 2 * random.nextInt(40) + 1;
+      int sy = 2 * random.nextInt(40) + 1;
+      int gx = 2 * random.nextInt(40) + 1;
+      int gy = 2 * random.nextInt(40) + 1;
+      int[] expected = astar.plan(grid, sx, sy, gx, gy);
+      int[] path = landmark.plan(grid, sx, sy, gx, gy);
+      astarExpansions += astar.getExpansions();
+      landmarkExpansions += landmark.getExpansions();
+
+      assertEquals("Landmark path isn't a shortest path", expected.length, path.length);
+      assertEquals("Landmark path doesn't start at the start", sy * 81 + sx, path[0]);
+      assertEquals("Landmark path doesn't end at the goal", gy * 81 + gx, path[path.length - 1]);
+    }
+    assertTrue(
+      "Landmarks don't cut the expansions",
+      landmarkExpansions * 2 < astarExpansions);
+  }
+
+  /*
+    Tests whether the stored distances are the lengths of shortest paths
+    from each landmark.
+  */
+  @Test(timeout=10000)
+  public void distancesTest() {
+    Grid grid = new MazeGrid(SeededMazeGenerator.generate(SeededMazeGenerator.LOOPY, 21, 21, 7L));
+    LandmarkTable table = new LandmarkTable(grid, 4);
+    AStarPlanner astar = new AStarPlanner();
+
+    for (int i = 0; i < table.getCount(); i++) {
+      int landmark = table.getLandmark(i);
+      for (int y = 0; y < 21; y++) {
+        for (int x = 0; x < 21; x++) {
+          int[] path = astar.plan(grid, landmark % 21, landmark / 21, x, y);
+          int expected = (path == null) ? -1 : path.length - 1;
+          assertEquals("Wrong landmark distance", expected, table.distance(i, y * 21 + x));
+        }
+      }
+    }
+    assertEquals("Distances aren't kept as shorts", 4 * 21 * 21 * 2, table.getMemoryBytes());
+  }
+
+  /*
+    Tests whether squares that can't be reached from any landmark still
+    get planned between and whether planning between parts of the grid
+    that aren't joined fails.
+  */
+  @Test(timeout=10000)
+  public void separateRegionsTest() {
+    // Split an open maze in two with a wall down the middle
+    Maze maze = PlannerBenchmark.openMaze(11, 7);
+    for (int y = 0; y < 7; y++) {
+      maze.setCellType(5, y, Maze.WALL);
+    }
+    Grid grid = new MazeGrid(maze);
+    LandmarkPlanner planner = new LandmarkPlanner(new LandmarkTable(grid, 2));
+
+    assertTrue("Path across the wall found", planner.plan(grid, 1, 1, 9, 5) == null);
+    assertEquals("Left side path is wrong", 7, planner.plan(grid, 1, 1, 4, 5).length - 1);
+    assertEquals("Right side path is wrong", 7, planner.plan(grid, 6, 1, 9, 5).length - 1);
+  }
+}
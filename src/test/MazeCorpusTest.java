@@ -0,0 +1,202 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import uk.ac.warwick.dcs.maze.logic.RobotImpl;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/*
+  This class contains unit tests for the MazeCorpus class, the writer and
+  mapped mazes it uses, and the SeededMazeGenerator.
+*/
+public class MazeCorpusTest {
+  // The sizes of maze used for testing
+  private int[] sizes = {5, 11, 21, 33};
+
+  /*
+    Tests whether every maze read back from a corpus matches the maze
+    generated from its seed.
+  */
+  @Test(timeout=10000)
+  public void roundTripTest() throws IOException {
+    Path path = temporaryFile();
+    MazeCorpus.generate(path, this.sizes, 3, 118L);
+
+    try (MazeCorpus corpus = MazeCorpus.open(path)) {
+      assertEquals("Wrong number of mazes", this.sizes.length * 3 * 3, corpus.size());
+      for (MappedMaze mapped : corpus.getMazes()) {
+        Maze maze = SeededMazeGenerator.generate(mapped.getKind(),
+          mapped.getWidth(), mapped.getHeight(), mapped.getSeed());
+        assertEquals("Wrong start", maze.getStart(), mapped.getStart());
+        assertEquals("Wrong finish", maze.getFinish(), mapped.getFinish());
+        for (int x = 0; x < maze.getWidth(); x++) {
+          for (int y = 0; y < maze.getHeight(); y++) {
+            assertTrue(
+              "Square read back from the corpus is wrong",
+              mapped.isPassable(x, y) == (maze.getCellType(x, y) != Maze.WALL));
+          }
+        }
+      }
+    }
+  }
+
+  /*
+    Tests whether a robot can find its way through a mapped maze without
+    it being copied.
+  */
+  @Test(timeout=10000)
+  public void mazeViewTest() throws IOException {
+    Path path = temporaryFile();
+    MazeCorpus.generate(path, this.sizes, 1, 118L);
+
+    try (MazeCorpus corpus = MazeCorpus.open(path)) {
+      for (MappedMaze mapped : corpus.getMazes()) {
+        int[] shortest = new AStarPlanner().plan(mapped, mapped.getStart().x,
+          mapped.getStart().y, mapped.getFinish().x, mapped.getFinish().y);
+        RobotImpl robot = new RobotImpl();
+        robot.setMaze(mapped);
+        PlannerController controller = new PlannerController();
+        controller.setRobot(robot);
+        controller.setMaze(mapped);
+        controller.start();
+
+        assertTrue(
+          "The robot doesn't reach the target",
+          robot.getLocation().equals(robot.getTargetLocation()));
+        assertEquals("The robot doesn't take a shortest path",
+          shortest.length - 1, robot.getSteps());
+        assertEquals("Wrong square type", Maze.WALL, mapped.getCellType(0, 0));
+        assertFalse("The maze was copied", mapped.isCopied());
+      }
+    }
+  }
+
+  /*
+    Tests whether changing a mapped maze changes a copy of its squares
+    and not the file.
+  */
+  @Test(timeout=10000)
+  public void changeTest() throws IOException {
+    Path path = temporaryFile();
+    MazeCorpus.generate(path, this.sizes, 1, 118L);
+
+    try (MazeCorpus corpus = MazeCorpus.open(path)) {
+      MappedMaze mapped = corpus.get(0);
+      assertTrue("Square should start as a passage", mapped.isPassable(1, 1));
+      mapped.setCellType(1, 1, Maze.WALL);
+      mapped.setFinish(3, 1);
+
+      assertTrue("The maze isn't copied when changed", mapped.isCopied());
+      assertEquals("Change isn't seen", Maze.WALL, mapped.getCellType(1, 1));
+      assertFalse("Change isn't seen by planners", mapped.isPassable(1, 1));
+      assertEquals("Finish isn't changed", 3, mapped.getFinish().x);
+      assertEquals("Other squares are changed",
+        Maze.WALL, mapped.getCellType(0, 0));
+    }
+
+    // The file still has the maze as it was generated
+    try (MazeCorpus corpus = MazeCorpus.open(path)) {
+      assertTrue("The file was changed", corpus.get(0).isPassable(1, 1));
+    }
+  }
+
+  /*
+    Tests whether a square outside the maze can't be read, rather than
+    being read from the next row.
+  */
+  @Test(timeout=10000)
+  public void boundsTest() throws IOException {
+    Path path = temporaryFile();
+    MazeCorpus.generate(path, this.sizes, 1, 118L);
+
+    try (MazeCorpus corpus = MazeCorpus.open(path)) {
+      MappedMaze mapped = corpus.get(0);
+      int[][] outside = {
+        {mapped.getWidth(), 0}, {-1, 1}, {0, mapped.getHeight()}, {0, -1}
+      };
+      for (int[] square : outside) {
+        try {
+          mapped.isPassable(square[0], square[1]);
+          fail("Square outside the maze was read: " + square[0] + "," + square[1]);
+        } catch (ArrayIndexOutOfBoundsException e) {
+          // This is expected
+        }
+      }
+    }
+  }
+
+  /*
+    Tests whether writing a corpus twice with the same seed gives
+    exactly the same file.
+  */
+  @Test(timeout=10000)
+  public void deterministicTest() throws IOException {
+    Path first = temporaryFile();
+    Path second = temporaryFile();
+    MazeCorpus.generate(first, this.sizes, 2, 118L);
+    MazeCorpus.generate(second, this.sizes, 2, 118L);
+
+    assertTrue(
+      "The same seed doesn't give the same corpus",
+      Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(second)));
+  }
+
+  /*
+    Tests whether Prim mazes join every room with exactly one path and
+    loopy mazes open up extra walls.
+  */
+  @Test(timeout=10000)
+  public void generatorTest() {
+    Maze prim = SeededMazeGenerator.generate(SeededMazeGenerator.PRIM, 41, 31, 7L);
+    Maze loopy = SeededMazeGenerator.generate(SeededMazeGenerator.LOOPY, 41, 31, 7L);
+    int rooms = 20 * 15;
+
+    // A tree joining every room has one passage between rooms fewer
+    // than there are rooms, and every room can be reached
+    assertEquals("Prim maze isn't a tree", 2 * rooms - 1, passages(prim));
+    assertTrue(
+      "Prim maze doesn't reach every room",
+      new AStarPlanner().plan(new MazeGrid(prim), 1, 1, 39, 29) != null);
+    assertTrue(
+      "Loopy maze doesn't have any loops",
+      passages(loopy) > 2 * rooms - 1);
+  }
+
+  /*
+    Tests whether opening a file that isn't a corpus fails.
+  */
+  @Test(timeout=10000)
+  public void badMagicTest() throws IOException {
+    Path path = temporaryFile();
+    Files.write(path, new byte[64]);
+    try {
+      MazeCorpus.open(path).close();
+      fail("A file that isn't a corpus was opened");
+    } catch (IOException e) {
+      // This is expected
+    }
+  }
+
+  // This method returns the number of passages in the maze
+  private int passages(Maze maze) {
+    int count = 0;
+    for (int x = 0; x < maze.getWidth(); x++) {
+      for (int y = 0; y < maze.getHeight(); y++) {
+        if (maze.getCellType(x, y) != Maze.WALL) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  // This method returns a temporary file that is deleted when the
+  // tests finish
+  private Path temporaryFile() throws IOException {
+    Path path = Files.createTempFile("maze-corpus", ".bin");
+    path.toFile().deleteOnExit();
+    return path;
+  }
+}
@@ -0,0 +1,163 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import uk.ac.warwick.dcs.maze.generators.PrimGenerator;
+import uk.ac.warwick.dcs.maze.logic.IRobot;
+import uk.ac.warwick.dcs.maze.logic.IRobotController;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+  This class contains unit tests for the MonteCarloHarness class and the
+  OnlineStatistics and P2Quantile classes it uses.
+*/
+public class MonteCarloHarnessTest {
+  /*
+    Tests whether the online mean and variance match the values
+    worked out directly.
+  */
+  @Test(timeout=10000)
+  public void meanAndVarianceTest() {
+    double[] values = {4, 7, 13, 16, 21, 2, 9};
+    OnlineStatistics statistics = new OnlineStatistics();
+    double sum = 0;
+    for (double value : values) {
+      statistics.add(value);
+      sum += value;
+    }
+    double mean = sum / values.length;
+    double squares = 0;
+    for (double value : values) {
+      squares += (value - mean) * (value - mean);
+    }
+
+    assertEquals("Wrong count", values.length, statistics.getCount());
+    assertEquals("Wrong mean", mean, statistics.getMean(), 1e-9);
+    assertEquals("Wrong variance",
+      squares / (values.length - 1), statistics.getVariance(), 1e-9);
+    assertEquals("Wrong minimum", 2.0, statistics.getMin(), 0.0);
+    assertEquals("Wrong maximum", 21.0, statistics.getMax(), 0.0);
+  }
+
+  /*
+    Tests whether the quantile sketches are close to the true quantiles
+    of uniformly distributed values.
+  */
+  @Test(timeout=10000)
+  public void quantileTest() {
+    Random random = new Random(118L);
+    OnlineStatistics statistics = new OnlineStatistics();
+    for (int i = 0; i < 100000; i++) {
+      statistics.add(random.nextDouble() * 1000);
+    }
+
+    assertEquals("Median is wrong", 500.0, statistics.getMedian(), 10.0);
+    assertEquals("90th percentile is wrong", 900.0, statistics.getP90(), 10.0);
+    assertEquals("99th percentile is wrong", 990.0, statistics.getP99(), 5.0);
+  }
+
+  /*
+    Tests whether the harness stops as soon as the confidence interval
+    is narrow enough rather than making every run it is allowed.
+  */
+  @Test(timeout=60000)
+  public void earlyStoppingTest() throws InterruptedException {
+    Maze maze = (new PrimGenerator()).generateMaze();
+    MonteCarloHarness harness = new MonteCarloHarness(maze,
+      seed -> new RandomController(seed), 4, 118L);
+
+    // A wide interval should need far fewer runs than the maximum
+    OnlineStatistics statistics = harness.run(0.25, 10, 100000);
+    assertTrue(
+      "The harness doesn't stop early",
+      statistics.getCount() < 100000);
+    assertTrue(
+      "The harness stops before the interval is narrow enough",
+      statistics.getHalfWidth(MonteCarloHarness.Z_95)
+        <= 0.25 * statistics.getMean());
+    assertTrue(
+      "The harness makes fewer runs than the minimum",
+      statistics.getCount() >= 10);
+  }
+
+  /*
+    Tests whether the result only depends on the seed and not on how many
+    threads make the runs, so long runs that finish late aren't left out.
+  */
+  @Test(timeout=60000)
+  public void submissionOrderTest() throws InterruptedException {
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.PRIM, 15, 15, 118L);
+    OnlineStatistics one = new MonteCarloHarness(maze,
+      seed -> new RandomController(seed), 1, 118L).run(0.05, 10, 100000);
+    OnlineStatistics many = new MonteCarloHarness(maze,
+      seed -> new RandomController(seed), 8, 118L).run(0.05, 10, 100000);
+
+    assertEquals("Different number of runs", one.getCount(), many.getCount());
+    assertEquals("Different mean", one.getMean(), many.getMean(), 0.0);
+    assertEquals("Different maximum", one.getMax(), many.getMax(), 0.0);
+  }
+
+  /*
+    Tests whether every run has stopped by the time the harness returns,
+    including the runs after the stopping point that would never finish.
+  */
+  @Test(timeout=20000)
+  public void stopsRunsTest() throws InterruptedException {
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.PRIM, 15, 15, 118L);
+    final AtomicInteger created = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    // The first 10 runs finish and the rest only stop when reset
+    MonteCarloHarness harness = new MonteCarloHarness(maze, seed -> {
+      if (created.incrementAndGet() <= 10) {
+        return new RandomController(seed);
+      }
+      return new EndlessController(running);
+    }, 4, 118L);
+
+    OnlineStatistics statistics = harness.run(1e9, 10, 100000);
+    assertEquals("Wrong number of runs", 10, statistics.getCount());
+    assertTrue("No endless runs were started", created.get() > 10);
+    assertEquals("Runs are still moving", 0, running.get());
+  }
+
+  // This controller keeps going until it is reset, counting itself as
+  // running while it does
+  private static class EndlessController implements IRobotController {
+    private final AtomicInteger running;
+    private volatile boolean active;
+
+    EndlessController(AtomicInteger running) {
+      this.running = running;
+    }
+
+    public void start() {
+      active = true;
+      running.incrementAndGet();
+      try {
+        while (active) {
+          Thread.yield();
+        }
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+
+    public String getDescription() {
+      return "A controller which never finishes";
+    }
+
+    public void setDelay(int millis) {
+    }
+
+    public int getDelay() {
+      return 0;
+    }
+
+    public void reset() {
+      active = false;
+    }
+
+    public void setRobot(IRobot robot) {
+    }
+  }
+}
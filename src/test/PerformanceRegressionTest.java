@@ -0,0 +1,253 @@
+import org.junit.Test;
+import org.junit.BeforeClass;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.IRobot;
+import uk.ac.warwick.dcs.maze.logic.IRobotController;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import uk.ac.warwick.dcs.maze.logic.RobotImpl;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+  This class runs the controllers on a fixed corpus of seeded mazes and
+  compares how they do against the baseline in performance-baseline.txt.
+  Each line of the baseline gives a controller, a kind of maze, a metric,
+  the baseline value and the tolerance allowed as a fraction of it:
+
+    stepRatio           the steps taken over all the mazes of that kind
+                        divided by the length of the shortest paths, which
+                        must not go above the baseline plus the tolerance
+    throughputRatio     the steps taken per second divided by the steps
+                        per second of a reference that just walks the
+                        shortest paths through the same mazes, which must
+                        not go below the baseline minus the tolerance. The
+                        mazes of that kind are run over and over until a
+                        fixed number of steps has been taken, first by the
+                        reference and then by the controller, several
+                        times, and the median ratio is used so that one
+                        slow pass doesn't fail the test.
+
+  The reference makes the same calls to the robot as the controllers
+  without deciding anything, so the ratio is the share of the time the
+  controller leaves to the maze library. Timing both in the same run takes
+  out the speed of the machine, and timing them in turn takes out most of
+  the drift while the test runs.
+
+  A table of the measured values against the baseline is always printed,
+  and the test fails if any of them has regressed.
+*/
+public class PerformanceRegressionTest {
+  // The file the baseline is read from
+  private static final Path BASELINE = Paths.get("src/test/performance-baseline.txt");
+  // The sizes and number of mazes of each kind in the corpus
+  private static final int[] SIZES = {11, 21, 41, 81};
+  private static final int MAZES_PER_SIZE = 5;
+  // The seed the corpus is generated from
+  private static final long SEED = 118L;
+  // The number of steps taken in each timed pass, the number of passes
+  // made to warm up and the number of timed passes the median rate is
+  // taken from
+  private static final long STEP_BUDGET = 500000;
+  private static final int WARM_UP_PASSES = 3;
+  private static final int PASSES = 7;
+  // The corpus the controllers are run on
+  private static MazeCorpus corpus;
+  // The shortest path through each maze of the corpus, in the same order
+  private static int[][] paths;
+
+  /*
+    This method is run once before the tests and writes the corpus.
+  */
+  @BeforeClass
+  public static void setupCorpus() throws IOException {
+    Path path = Files.createTempFile("performance-corpus", ".bin");
+    path.toFile().deleteOnExit();
+    MazeCorpus.generate(path, SIZES, MAZES_PER_SIZE, SEED);
+    corpus = MazeCorpus.open(path);
+    AStarPlanner planner = new AStarPlanner();
+    List<MappedMaze> mazes = corpus.getMazes();
+    paths = new int[mazes.size()][];
+    for (int i = 0; i < paths.length; i++) {
+      MappedMaze mapped = mazes.get(i);
+      paths[i] = planner.plan(mapped, mapped.getStart().x, mapped.getStart().y,
+        mapped.getFinish().x, mapped.getFinish().y);
+    }
+  }
+
+  /*
+    Tests whether any of the controllers have got worse than the baseline.
+  */
+  @Test(timeout=300000)
+  public void baselineTest() throws IOException {
+    StringBuilder table = new StringBuilder(String.format(
+      "%-28s %-6s %-19s %12s %12s %8s  %s%n", "controller", "maze",
+      "metric", "baseline", "measured", "change", "result"));
+    boolean regressed = false;
+
+    List<String> lines = Files.readAllLines(BASELINE);
+    for (String line : lines) {
+      // Skip blank lines and comments
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] fields = line.split("\\s+");
+      assertEquals("Baseline line should have 5 fields: " + line, 5, fields.length);
+      String controller = fields[0];
+      String maze = fields[1];
+      String metric = fields[2];
+      double baseline = Double.parseDouble(fields[3]);
+      double tolerance = Double.parseDouble(fields[4]);
+
+      double value;
+      boolean passed;
+      if (metric.equals("stepRatio")) {
+        value = stepRatio(controller, kind(maze));
+        passed = value <= baseline * (1 + tolerance) + 1e-9;
+      } else if (metric.equals("throughputRatio")) {
+        value = throughputRatio(controller, kind(maze));
+        passed = value >= baseline * (1 - tolerance);
+      } else {
+        throw new IllegalArgumentException("unknown metric " + metric);
+      }
+      regressed |= !passed;
+      table.append(String.format("%-28s %-6s %-19s %12.3f %12.3f %+7.1f%%  %s%n",
+        controller, maze, metric, baseline, value,
+        100 * (value - baseline) / baseline, passed ? "ok" : "REGRESSED"));
+    }
+
+    System.out.print(table);
+    assertFalse("Performance has regressed:\n" + table, regressed);
+  }
+
+  // This method runs the controller on every maze of the given kind and
+  // returns the steps taken divided by the length of the shortest paths
+  private static double stepRatio(String name, int kind) {
+    long steps = 0;
+    long shortest = 0;
+    List<MappedMaze> mazes = corpus.getMazes();
+    for (int i = 0; i < paths.length; i++) {
+      MappedMaze mapped = mazes.get(i);
+      if (mapped.getKind() != kind) {
+        continue;
+      }
+      shortest += paths[i].length - 1;
+
+      RobotImpl robot = run(name, mapped);
+      steps += robot.getSteps();
+      assertTrue(
+        name + " doesn't reach the target",
+        robot.getLocation().equals(robot.getTargetLocation()));
+    }
+    return (double) steps / shortest;
+  }
+
+  // This method returns the median over several timed passes of the steps
+  // per second taken by the controller divided by those taken by the
+  // reference in the pass before, after warming both up
+  private static double throughputRatio(String name, int kind) {
+    for (int i = 0; i < WARM_UP_PASSES; i++) {
+      timedPass(null, kind);
+      timedPass(name, kind);
+    }
+    double[] ratios = new double[PASSES];
+    for (int i = 0; i < PASSES; i++) {
+      double reference = timedPass(null, kind);
+      ratios[i] = timedPass(name, kind) / reference;
+    }
+    Arrays.sort(ratios);
+    return ratios[PASSES / 2];
+  }
+
+  // This method runs the controller, or the reference if the name is null,
+  // over the mazes of the given kind until it has taken STEP_BUDGET steps
+  // and returns the steps taken per second
+  private static double timedPass(String name, int kind) {
+    long steps = 0;
+    long nanos = 0;
+    List<MappedMaze> mazes = corpus.getMazes();
+    while (steps < STEP_BUDGET) {
+      for (int i = 0; i < paths.length; i++) {
+        MappedMaze mapped = mazes.get(i);
+        if (mapped.getKind() == kind) {
+          long begin = System.nanoTime();
+          steps += (name == null ? walk(mapped, paths[i]) : run(name, mapped)).getSteps();
+          nanos += System.nanoTime() - begin;
+        }
+      }
+    }
+    return steps / (nanos / 1e9);
+  }
+
+  // This method is the reference, which walks the robot along the path
+  // from the start to the finish of the maze and returns the robot. Like a
+  // controller, it looks ahead before each move and checks where the robot
+  // is after it.
+  private static RobotImpl walk(Maze maze, int[] path) {
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    int width = maze.getWidth();
+    for (int i = 1; i < path.length; i++) {
+      int dx = path[i] % width - path[i - 1] % width;
+      int dy = path[i] / width - path[i - 1] / width;
+      robot.setHeading(dy < 0 ? IRobot.NORTH : dx > 0 ? IRobot.EAST
+        : dy > 0 ? IRobot.SOUTH : IRobot.WEST);
+      if (robot.look(IRobot.AHEAD) == IRobot.WALL) {
+        throw new IllegalStateException("the shortest path runs into a wall");
+      }
+      robot.advance();
+      if (robot.getLocation().equals(robot.getTargetLocation())) {
+        break;
+      }
+    }
+    return robot;
+  }
+
+  // This method runs the controller from the start to the finish of the
+  // maze and returns the robot
+  private static RobotImpl run(String name, Maze maze) {
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    create(name, maze, robot).start();
+    return robot;
+  }
+
+  // This method returns the controller with the given name set up to
+  // control the robot in the maze
+  private static IRobotController create(String name, Maze maze, RobotImpl robot) {
+    IRobotController controller;
+    if (name.equals("HomingController")) {
+      controller = new HomingController();
+    } else if (name.equals("PledgeController")) {
+      controller = new PledgeController();
+    } else if (name.equals("PlannerController")) {
+      PlannerController planner = new PlannerController();
+      planner.setMaze(maze);
+      controller = planner;
+    } else if (name.equals("PipelinedPlannerController")) {
+      PipelinedPlannerController pipelined = new PipelinedPlannerController();
+      pipelined.setMaze(maze);
+      controller = pipelined;
+    } else {
+      throw new IllegalArgumentException("unknown controller " + name);
+    }
+    controller.setRobot(robot);
+    return controller;
+  }
+
+  // This method returns the kind of maze with the given name
+  private static int kind(String name) {
+    if (name.equals("prim")) {
+      return SeededMazeGenerator.PRIM;
+    } else if (name.equals("loopy")) {
+      return SeededMazeGenerator.LOOPY;
+    } else if (name.equals("open")) {
+      return SeededMazeGenerator.OPEN;
+    }
+    throw new IllegalArgumentException("unknown kind of maze " + name);
+  }
+}
@@ -0,0 +1,304 @@
+import org.junit.Test;
+import org.junit.Before;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import uk.ac.warwick.dcs.maze.generators.PrimGenerator;
+import uk.ac.warwick.dcs.maze.logic.RobotImpl;
+import java.awt.Point;
+
+/*
+  This class contains unit tests for the PipelinedPlannerController class.
+*/
+public class PipelinedPlannerControllerTest {
+  // The dimensions of the test maze
+  private int columns = 5;
+  private int rows = 5;
+  // The maze used for testing
+  private Maze maze;
+  // The robot used for testing
+  private RobotImpl robot;
+
+  /*
+    This method is run before all tests.
+  */
+  @Before
+  public void setupTests() {
+    // Generate a maze with the test dimensions
+    this.maze = new Maze(this.columns, this.rows);
+
+    // Fill the maze with passages
+    for (int i=0; i<this.columns; i++) {
+      for (int j=0; j<this.rows; j++) {
+        this.maze.setCellType(i, j, Maze.PASSAGE);
+      }
+    }
+
+    // Set the starting point somewhere near the middle
+    this.maze.setStart(2,2);
+    this.maze.setFinish(0,0);
+
+    // Initialise the robot
+    this.robot = new RobotImpl();
+    this.robot.setMaze(this.maze);
+  }
+
+  /*
+    Tests whether the robot takes a shortest path when the path is
+    split over several segments by the planning thread.
+  */
+  @Test(timeout=10000)
+  public void segmentedPathTest() {
+    // Wall off all but the bottom of column 3 so the shortest path to
+    // the other side is 7 steps, and use segments of 2 moves. The robot
+    // only uses the planning thread when it has a delay.
+    for (int i = 0; i < 4; i++) {
+      this.maze.setCellType(3, i, Maze.WALL);
+    }
+    PipelinedPlannerController controller =
+      new PipelinedPlannerController(new JumpPointPlanner(), 2);
+    controller.setRobot(this.robot);
+    controller.setMaze(this.maze);
+    controller.setDelay(1);
+    this.robot.setTargetLocation(new Point(4, 1));
+    controller.start();
+
+    assertTrue(
+      "The robot doesn't reach the target",
+      this.robot.getLocation().equals(this.robot.getTargetLocation()));
+    assertTrue(
+      "The robot doesn't take a shortest path",
+      this.robot.getSteps() == 7);
+    assertTrue(
+      "The robot plans more than once",
+      controller.getPlans() == 1);
+    assertTrue(
+      "The path isn't split into segments of 2 moves",
+      controller.getSegments() == 4);
+  }
+
+  /*
+    Tests whether queued segments are thrown away and a new path is
+    planned when a wall appears on the path.
+  */
+  @Test(timeout=10000)
+  public void replanTest() {
+    // Use a planner that puts a wall on the path after the first plan,
+    // as if the maze had changed while the robot was moving
+    final Maze maze = this.maze;
+    final AStarPlanner aStar = new AStarPlanner();
+    final boolean[] changed = {false};
+    PipelinedPlannerController controller =
+      new PipelinedPlannerController(new GridPlanner() {
+        public int[] plan(Grid grid, int startX, int startY, int goalX, int goalY) {
+          int[] path = aStar.plan(grid, startX, startY, goalX, goalY);
+          if (!changed[0]) {
+            maze.setCellType(path[3] % maze.getWidth(), path[3] / maze.getWidth(), Maze.WALL);
+            changed[0] = true;
+          }
+          return path;
+        }
+
+        public long getExpansions() {
+          return aStar.getExpansions();
+        }
+      }, 1);
+    controller.setRobot(this.robot);
+    controller.setMaze(maze);
+    this.robot.setTargetLocation(new Point(0, 4));
+    controller.start();
+
+    assertTrue(
+      "The robot doesn't reach the target",
+      this.robot.getLocation().equals(this.robot.getTargetLocation()));
+    assertTrue(
+      "The robot doesn't plan again",
+      controller.getPlans() == 2);
+    assertTrue(
+      "The robot collides with a wall",
+      this.robot.getCollisions() == 0);
+  }
+
+  /*
+    Tests whether queued moves are dropped as soon as a wall appears on
+    them rather than when the robot reaches the wall.
+  */
+  @Test(timeout=10000)
+  public void earlyReplanTest() {
+    // Block the short corridor near its end while the first path is
+    // being planned
+    final ObservableMaze maze = corridors();
+    final AStarPlanner aStar = new AStarPlanner();
+    final boolean[] changed = {false};
+    PipelinedPlannerController controller =
+      new PipelinedPlannerController(new GridPlanner() {
+        public int[] plan(Grid grid, int startX, int startY, int goalX, int goalY) {
+          int[] path = aStar.plan(grid, startX, startY, goalX, goalY);
+          if (!changed[0]) {
+            maze.setCellType(5, 0, Maze.WALL);
+            changed[0] = true;
+          }
+          return path;
+        }
+
+        public long getExpansions() {
+          return aStar.getExpansions();
+        }
+      }, 2);
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    controller.setRobot(robot);
+    controller.setMaze(maze);
+    controller.start();
+
+    assertTrue(
+      "The robot doesn't reach the target",
+      robot.getLocation().equals(robot.getTargetLocation()));
+    assertTrue(
+      "The robot doesn't plan again",
+      controller.getPlans() == 2);
+    assertTrue(
+      "The robot moves towards the wall before turning back",
+      robot.getSteps() == 10);
+  }
+
+  /*
+    Tests whether the robot keeps moving along the clear part of its path
+    while the planning thread plans again, when it has a delay.
+  */
+  @Test(timeout=10000)
+  public void movesWhilePlanningTest() {
+    // Block the short corridor during the first plan and make the second
+    // plan slow, noting how far the robot has moved when it is done. The
+    // first path fits in one segment so the wall is seen before moving.
+    final ObservableMaze maze = corridors();
+    final AStarPlanner aStar = new AStarPlanner();
+    final RobotImpl robot = new RobotImpl();
+    final int[] calls = {0};
+    final int[] stepsPlanned = {0};
+    PipelinedPlannerController controller =
+      new PipelinedPlannerController(new GridPlanner() {
+        public int[] plan(Grid grid, int startX, int startY, int goalX, int goalY) {
+          int[] path = aStar.plan(grid, startX, startY, goalX, goalY);
+          calls[0]++;
+          if (calls[0] == 1) {
+            maze.setCellType(5, 0, Maze.WALL);
+          } else if (calls[0] == 2) {
+            try {
+              Thread.sleep(200);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            stepsPlanned[0] = robot.getSteps();
+          }
+          return path;
+        }
+
+        public long getExpansions() {
+          return aStar.getExpansions();
+        }
+      }, 16);
+    robot.setMaze(maze);
+    controller.setRobot(robot);
+    controller.setMaze(maze);
+    controller.setDelay(1);
+    controller.start();
+
+    assertTrue(
+      "The robot doesn't reach the target",
+      robot.getLocation().equals(robot.getTargetLocation()));
+    assertTrue(
+      "The robot waits for the new plan",
+      stepsPlanned[0] > 0);
+    // One step along the top while planning, one back and ten round
+    assertTrue(
+      "The robot doesn't turn back when the new plan is ready",
+      robot.getSteps() == 12);
+    assertTrue(
+      "The robot collides with a wall",
+      robot.getCollisions() == 0);
+  }
+
+  /*
+    Tests whether the controller stops when the target can't be reached.
+  */
+  @Test(timeout=10000)
+  public void unreachableTargetTest() {
+    // Surround the top left corner with walls
+    this.maze.setCellType(1, 0, Maze.WALL);
+    this.maze.setCellType(0, 1, Maze.WALL);
+    this.maze.setCellType(1, 1, Maze.WALL);
+    PipelinedPlannerController controller = new PipelinedPlannerController();
+    controller.setRobot(this.robot);
+    controller.setMaze(this.maze);
+    controller.start();
+
+    assertTrue(
+      "The robot moves when there is no path",
+      this.robot.getSteps() == 0);
+  }
+
+  /*
+    Tests whether the controller takes as many steps as the
+    PlannerController on randomly generated mazes, both when it plans
+    for itself and when it has a delay and takes its path a segment at a
+    time from the planning thread.
+  */
+  @Test(timeout=20000)
+  public void matchesPlannerControllerTest() {
+    for (int i = 0; i < 3; i++) {
+      Maze maze = (new PrimGenerator()).generateMaze();
+
+      // Run the planner controller on the maze
+      RobotImpl planned = new RobotImpl();
+      planned.setMaze(maze);
+      PlannerController plannerController = new PlannerController();
+      plannerController.setRobot(planned);
+      plannerController.setMaze(maze);
+      plannerController.start();
+
+      // Run the pipelined controller on the same maze without a delay
+      // and with one
+      for (int delay = 0; delay <= 1; delay++) {
+        RobotImpl pipelined = new RobotImpl();
+        pipelined.setMaze(maze);
+        PipelinedPlannerController controller =
+          new PipelinedPlannerController(new JumpPointPlanner(), 4);
+        controller.setRobot(pipelined);
+        controller.setMaze(maze);
+        controller.setDelay(delay);
+        controller.start();
+
+        assertTrue(
+          "PipelinedPlannerController doesn't finish",
+          pipelined.getLocation().equals(pipelined.getTargetLocation()));
+        assertTrue(
+          "PipelinedPlannerController takes a different number of steps",
+          pipelined.getSteps() == planned.getSteps());
+        if (delay > 0) {
+          assertTrue(
+            "PipelinedPlannerController doesn't take the path in segments",
+            controller.getSegments() > 1);
+        } else {
+          assertTrue(
+            "PipelinedPlannerController uses the planning thread without a delay",
+            controller.getSegments() == 0);
+        }
+      }
+    }
+  }
+
+  // This method returns a maze with two corridors from the start to the
+  // finish, a short one along the top and a long one round the bottom
+  private ObservableMaze corridors() {
+    ObservableMaze maze = new ObservableMaze(7, 3);
+    for (int x = 0; x < 7; x++) {
+      maze.setCellType(x, 0, Maze.PASSAGE);
+      maze.setCellType(x, 2, Maze.PASSAGE);
+    }
+    maze.setCellType(0, 1, Maze.PASSAGE);
+    maze.setCellType(6, 1, Maze.PASSAGE);
+    maze.setStart(0, 0);
+    maze.setFinish(6, 0);
+    return maze;
+  }
+}
@@ -0,0 +1,233 @@
+import org.junit.Test;
+import org.junit.Before;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import uk.ac.warwick.dcs.maze.generators.PrimGenerator;
+import uk.ac.warwick.dcs.maze.generators.LoopyGenerator;
+import uk.ac.warwick.dcs.maze.logic.RobotImpl;
+import java.awt.Point;
+
+/*
+  This class contains unit tests for the PlannerController class and the
+  A* and jump point search planners it uses.
+*/
+public class PlannerControllerTest {
+  // The dimensions of the test maze
+  private int columns = 5;
+  private int rows = 5;
+  // The maze used for testing
+  private Maze maze;
+  // The robot used for testing
+  private RobotImpl robot;
+  // The controller used for testing
+  private PlannerController controller;
+
+  /*
+    This method is run before all tests.
+  */
+  @Before
+  public void setupTests() {
+    // Generate a maze with the test dimensions
+    this.maze = new Maze(this.columns, this.rows);
+
+    // Fill the maze with passages
+    for (int i=0; i<this.columns; i++) {
+      for (int j=0; j<this.rows; j++) {
+        this.maze.setCellType(i, j, Maze.PASSAGE);
+      }
+    }
+
+    // Set the starting point somewhere near the middle
+    this.maze.setStart(2,2);
+    this.maze.setFinish(0,0);
+
+    // Initialise the robot
+    this.robot = new RobotImpl();
+    this.robot.setMaze(this.maze);
+
+    // Initialise the planner robot controller
+    this.controller = new PlannerController();
+    this.controller.setRobot(this.robot);
+    this.controller.setMaze(this.maze);
+  }
+
+  /*
+    Tests whether the robot takes a shortest path around a wall.
+  */
+  @Test(timeout=10000)
+  public void largeWallNavigationTest() {
+    // Change all cells but the bottom cell where the x coordinate is 3
+    // to be a wall then move the target to the other side of the wall,
+    // which is 2 steps down, 2 steps across and 3 steps up
+    for (int i = 0; i < 4; i++) {
+      this.maze.setCellType(3, i, Maze.WALL);
+    }
+    this.robot.setTargetLocation(new Point(4, 1));
+    this.controller.start();
+
+    assertTrue(
+      "The robot doesn't reach the target",
+      this.robot.getLocation().equals(this.robot.getTargetLocation()));
+    assertTrue(
+      "The robot doesn't take a shortest path",
+      this.robot.getSteps() == 7);
+    assertTrue(
+      "The robot collides with a wall",
+      this.robot.getCollisions() == 0);
+  }
+
+  /*
+    Tests whether the robot plans again when a wall appears on its path.
+  */
+  @Test(timeout=10000)
+  public void replanTest() {
+    // Use a planner that puts a wall on the path after the first plan,
+    // as if the maze had changed while the robot was moving
+    final Maze maze = this.maze;
+    final AStarPlanner aStar = new AStarPlanner();
+    final boolean[] changed = {false};
+    this.controller = new PlannerController(new GridPlanner() {
+      public int[] plan(Grid grid, int startX, int startY, int goalX, int goalY) {
+        int[] path = aStar.plan(grid, startX, startY, goalX, goalY);
+        if (!changed[0]) {
+          maze.setCellType(path[2] % maze.getWidth(), path[2] / maze.getWidth(), Maze.WALL);
+          changed[0] = true;
+        }
+        return path;
+      }
+
+      public long getExpansions() {
+        return aStar.getExpansions();
+      }
+    });
+    this.controller.setRobot(this.robot);
+    this.controller.setMaze(maze);
+    this.robot.setTargetLocation(new Point(0, 4));
+    this.controller.start();
+
+    assertTrue(
+      "The robot doesn't reach the target",
+      this.robot.getLocation().equals(this.robot.getTargetLocation()));
+    assertTrue(
+      "The robot doesn't plan again",
+      this.controller.getPlans() == 2);
+    assertTrue(
+      "The robot collides with a wall",
+      this.robot.getCollisions() == 0);
+  }
+
+  /*
+    Tests whether the robot turns back as soon as a wall blocks its path
+    in an ObservableMaze rather than when it reaches the wall.
+  */
+  @Test(timeout=10000)
+  public void earlyReplanTest() {
+    // Make two corridors from the start to the finish, a short one along
+    // the top and a long one round the bottom
+    final ObservableMaze maze = new ObservableMaze(7, 3);
+    for (int x = 0; x < 7; x++) {
+      maze.setCellType(x, 0, Maze.PASSAGE);
+      maze.setCellType(x, 2, Maze.PASSAGE);
+    }
+    maze.setCellType(0, 1, Maze.PASSAGE);
+    maze.setCellType(6, 1, Maze.PASSAGE);
+    maze.setStart(0, 0);
+    maze.setFinish(6, 0);
+
+    // Use a planner that blocks the short corridor near its end after
+    // the first plan
+    final AStarPlanner aStar = new AStarPlanner();
+    final boolean[] changed = {false};
+    this.controller = new PlannerController(new GridPlanner() {
+      public int[] plan(Grid grid, int startX, int startY, int goalX, int goalY) {
+        int[] path = aStar.plan(grid, startX, startY, goalX, goalY);
+        if (!changed[0]) {
+          maze.setCellType(5, 0, Maze.WALL);
+          changed[0] = true;
+        }
+        return path;
+      }
+
+      public long getExpansions() {
+        return aStar.getExpansions();
+      }
+    });
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    this.controller.setRobot(robot);
+    this.controller.setMaze(maze);
+    this.controller.start();
+
+    assertTrue(
+      "The robot doesn't reach the target",
+      robot.getLocation().equals(robot.getTargetLocation()));
+    // One step along the top before noticing, one back and ten round
+    assertTrue(
+      "The robot doesn't turn back as soon as the wall appears",
+      robot.getSteps() == 12);
+  }
+
+  /*
+    Tests whether jump point search finds paths as short as A* on open
+    grids and generated mazes while expanding fewer squares on open grids.
+  */
+  @Test(timeout=20000)
+  public void jumpPointSearchOptimalTest() {
+    AStarPlanner aStar = new AStarPlanner();
+    JumpPointPlanner jumpPoint = new JumpPointPlanner();
+
+    // Compare the planners on an open grid
+    Maze open = PlannerBenchmark.openMaze(60, 40);
+    Grid grid = new MazeGrid(open);
+    int[] aStarPath = aStar.plan(grid, 1, 1, 58, 38);
+    int[] jumpPointPath = jumpPoint.plan(grid, 1, 1, 58, 38);
+    assertTrue(
+      "Jump point search doesn't find a shortest path on an open grid",
+      aStarPath.length == jumpPointPath.length);
+    assertTrue(
+      "Jump point search doesn't expand fewer squares on an open grid",
+      jumpPoint.getExpansions() < aStar.getExpansions());
+
+    // Compare the planners on three mazes from each generator
+    for (int i = 0; i < 6; i++) {
+      Maze maze;
+      if (i < 3) {
+        maze = (new PrimGenerator()).generateMaze();
+      } else {
+        maze = (new LoopyGenerator()).generateMaze();
+      }
+      grid = new MazeGrid(maze);
+      Point start = maze.getStart();
+      Point finish = maze.getFinish();
+      aStarPath = aStar.plan(grid, start.x, start.y, finish.x, finish.y);
+      jumpPointPath = jumpPoint.plan(grid, start.x, start.y, finish.x, finish.y);
+
+      assertTrue(
+        "Jump point search doesn't find a shortest path in a maze",
+        aStarPath.length == jumpPointPath.length);
+      assertTrue(
+        "Jump point search path doesn't end at the finish",
+        jumpPointPath[jumpPointPath.length - 1]
+          == finish.y * maze.getWidth() + finish.x);
+    }
+  }
+
+  /*
+    Tests whether the planner reports that there is no path when the
+    target is walled off.
+  */
+  @Test(timeout=10000)
+  public void unreachableTargetTest() {
+    // Surround the top left corner with walls
+    this.maze.setCellType(1, 0, Maze.WALL);
+    this.maze.setCellType(0, 1, Maze.WALL);
+    this.maze.setCellType(1, 1, Maze.WALL);
+
+    assertTrue(
+      "A* finds a path to an unreachable square",
+      new AStarPlanner().plan(new MazeGrid(this.maze), 2, 2, 0, 0) == null);
+    assertTrue(
+      "Jump point search finds a path to an unreachable square",
+      new JumpPointPlanner().plan(new MazeGrid(this.maze), 2, 2, 0, 0) == null);
+  }
+}
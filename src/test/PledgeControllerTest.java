@@ -0,0 +1,154 @@
+import org.junit.Test;
+import org.junit.Before;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import uk.ac.warwick.dcs.maze.generators.PrimGenerator;
+import uk.ac.warwick.dcs.maze.generators.LoopyGenerator;
+import uk.ac.warwick.dcs.maze.logic.RobotImpl;
+import java.awt.Point;
+
+/*
+  This class contains unit tests for the PledgeController class.
+*/
+public class PledgeControllerTest {
+  // The dimensions of the test maze
+  private int columns = 5;
+  private int rows = 5;
+  // The maze used for testing
+  private Maze maze;
+  // The robot used for testing
+  private RobotImpl robot;
+  // The controller used for testing
+  private PledgeController controller;
+
+  /*
+    This method is run before all tests.
+  */
+  @Before
+  public void setupTests() {
+    // Generate a maze with the test dimensions
+    this.maze = new Maze(this.columns, this.rows);
+
+    // Fill the maze with passages
+    for (int i=0; i<this.columns; i++) {
+      for (int j=0; j<this.rows; j++) {
+        this.maze.setCellType(i, j, Maze.PASSAGE);
+      }
+    }
+
+    // Set the starting point somewhere near the middle
+    this.maze.setStart(2,2);
+    this.maze.setFinish(0,0);
+
+    // Initialise the robot
+    this.robot = new RobotImpl();
+    this.robot.setMaze(this.maze);
+
+    // Initialise the pledge robot controller
+    this.controller = new PledgeController();
+    this.controller.setRobot(this.robot);
+  }
+
+  /*
+    Tests whether the robot homes in on the target without
+    making any unnecessary moves in a blank maze
+  */
+  @Test(timeout=10000)
+  public void blankMazeHomingBehaviourTest() {
+    // Move the target to four cells west and four cells north
+    // of the robot and check the number of steps is equal to 4
+    this.robot.setTargetLocation(new Point(0, 0));
+    this.controller.start();
+
+    assertTrue(
+      "Robot doesn't home in on target to the north west",
+      this.robot.getSteps() == 4);
+    assertTrue(
+      "Robot follows a wall in a blank maze",
+      !this.controller.isFollowingWall());
+  }
+
+  /*
+    Tests whether the robot gets past a wall that the HomingController
+    cannot, where the only path to the target involves moving away from
+    it (see largeWallNavigationTest in HomingControllerTest).
+  */
+  @Test(timeout=10000)
+  public void largeWallNavigationTest() {
+    // Change all cells but the bottom cell where the x coordinate is 3
+    // to be a wall then move the target to the other side of the wall
+    for (int i = 0; i < 4; i++) {
+      this.maze.setCellType(3, i, Maze.WALL);
+    }
+    this.robot.setTargetLocation(new Point(4, 1));
+    this.controller.start();
+
+    assertTrue(
+      "The robot cannot get past a continued wall",
+      this.robot.getLocation().equals(this.robot.getTargetLocation()));
+    assertTrue(
+      "The robot collides with a wall",
+      this.robot.getCollisions() == 0);
+  }
+
+  /*
+    Tests whether the robot gets out of a dead end that points
+    directly at the target.
+  */
+  @Test(timeout=10000)
+  public void deadEndEscapeTest() {
+    // Build a cup around the robot that is open to the south and put
+    // the target directly north of it
+    this.maze.setCellType(1, 1, Maze.WALL);
+    this.maze.setCellType(2, 1, Maze.WALL);
+    this.maze.setCellType(3, 1, Maze.WALL);
+    this.maze.setCellType(1, 2, Maze.WALL);
+    this.maze.setCellType(3, 2, Maze.WALL);
+    this.robot.setTargetLocation(new Point(2, 0));
+    this.controller.start();
+
+    assertTrue(
+      "The robot doesn't escape from the dead end",
+      this.robot.getLocation().equals(this.robot.getTargetLocation()));
+    assertTrue(
+      "The robot collides with a wall",
+      this.robot.getCollisions() == 0);
+  }
+
+  /*
+    Tests whether the controller finds the end of randomly generated
+    mazes from both generators without walking into walls.
+  */
+  @Test(timeout=20000)
+  public void reachEndTest() {
+    // Repeat test with three mazes from each generator
+    for (int i = 0; i < 6; i++) {
+      // Generate a random maze
+      Maze maze;
+      if (i < 3) {
+        maze = (new PrimGenerator()).generateMaze();
+      } else {
+        maze = (new LoopyGenerator()).generateMaze();
+      }
+
+      // Initialise the robot
+      RobotImpl robot = new RobotImpl();
+      robot.setMaze(maze);
+
+      // Initialise the pledge robot controller
+      PledgeController controller = new PledgeController();
+      controller.setRobot(robot);
+
+      // Run the controller
+      controller.start();
+
+      // Test whether the robot reached the target
+      assertTrue(
+        "PledgeController doesn't finish",
+        robot.getLocation().equals(robot.getTargetLocation()));
+      assertTrue(
+        "PledgeController walks into walls!",
+        robot.getCollisions() == 0);
+    }
+  }
+}
@@ -62,4 +62,111 @@ public class RandomControllerTest {
         robot.getLocation().equals(robot.getTargetLocation()));
     }
   }
+
+  /*
+    Tests whether two random controllers given the same seed make
+    exactly the same moves on the same maze.
+  */
+  @Test(timeout=20000)
+  public void seededRunsRepeatTest() {
+    // Generate a random maze
+    Maze maze = (new PrimGenerator()).generateMaze();
+
+    // Run a controller with the same seed twice on the maze
+    int[] steps = new int[2];
+    for (int i = 0; i < 2; i++) {
+      RobotImpl robot = new RobotImpl();
+      robot.setMaze(maze);
+      RandomController controller = new RandomController(118L);
+      controller.setRobot(robot);
+      controller.start();
+      steps[i] = robot.getSteps();
+    }
+
+    // Test whether both runs took the same number of steps
+    assertTrue(
+      "RandomController with the same seed doesn't repeat",
+      steps[0] == steps[1]);
+  }
+
+  /*
+    Tests whether fast-forward mode reaches the target without walking
+    into walls and takes the same number of steps on average as moving a
+    square at a time.
+  */
+  @Test(timeout=60000)
+  public void fastForwardTest() throws InterruptedException {
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.LOOPY, 15, 15, 118L);
+    final RunLengthTable table = new RunLengthTable(new MazeGrid(maze));
+
+    // Check a few runs directly
+    for (int i = 0; i < 20; i++) {
+      RobotImpl robot = new RobotImpl();
+      robot.setMaze(maze);
+      RandomController controller = new RandomController(i);
+      controller.setFastForward(table);
+      controller.setRobot(robot);
+      controller.start();
+      assertTrue(
+        "Fast-forward RandomController doesn't finish",
+        robot.getLocation().equals(robot.getTargetLocation()));
+      assertTrue(
+        "Fast-forward RandomController walks into walls!",
+        robot.getCollisions() == 0);
+    }
+
+    // Compare the mean number of steps over many runs of each mode
+    OnlineStatistics step = new MonteCarloHarness(maze,
+      seed -> new RandomController(seed), 2, 1L).run(0.02, 100, 100000);
+    OnlineStatistics fast = new MonteCarloHarness(maze, seed -> {
+      RandomController controller = new RandomController(seed);
+      controller.setFastForward(table);
+      return controller;
+    }, 2, 2L).run(0.02, 100, 100000);
+    double error = Math.hypot(step.getHalfWidth(1), fast.getHalfWidth(1));
+    assertTrue(
+      "Fast-forward mode doesn't take the same number of steps on average",
+      Math.abs(step.getMean() - fast.getMean()) < 4 * error);
+  }
+
+  /*
+    Tests whether each step in fast-forward mode makes exactly one move,
+    so that a StepScheduler counts its moves and keeps to its budget.
+  */
+  @Test(timeout=10000)
+  public void fastForwardStepTest() throws InterruptedException {
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.OPEN, 21, 21, 118L);
+    RunLengthTable table = new RunLengthTable(new MazeGrid(maze));
+
+    // Step through a whole run, counting the calls
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    RandomController controller = new RandomController(118L);
+    controller.setFastForward(table);
+    controller.setRobot(robot);
+    controller.begin();
+    int calls = 0;
+    boolean running = true;
+    while (running) {
+      running = controller.step();
+      calls++;
+      assertEquals("A step doesn't make exactly one move", calls, robot.getSteps());
+    }
+    assertTrue(
+      "Fast-forward RandomController doesn't finish",
+      robot.getLocation().equals(robot.getTargetLocation()));
+
+    // Give a robot far fewer moves than it needs
+    RobotImpl limited = new RobotImpl();
+    limited.setMaze(maze);
+    RandomController budgeted = new RandomController(118L);
+    budgeted.setFastForward(table);
+    budgeted.setRobot(limited);
+    StepScheduler scheduler = new StepScheduler(1, 16);
+    scheduler.setMoveBudget(10);
+    scheduler.add(budgeted);
+    scheduler.run();
+    assertEquals("Robot goes over its budget", 10, limited.getSteps());
+    assertEquals("Moves are miscounted", 10, scheduler.getMoves());
+  }
 }
@@ -0,0 +1,292 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import uk.ac.warwick.dcs.maze.logic.IRobot;
+import uk.ac.warwick.dcs.maze.logic.Maze;
+import uk.ac.warwick.dcs.maze.logic.RobotImpl;
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+  This class contains unit tests for the StepScheduler class and the
+  StepController methods of the controllers it runs.
+*/
+public class StepSchedulerTest {
+  /*
+    Tests whether thousands of homing robots sharing a maze all reach
+    their targets in the fewest steps when run on a few threads.
+  */
+  @Test(timeout=20000)
+  public void manyHomingRobotsTest() throws InterruptedException {
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.OPEN, 31, 31, 1L);
+    Random random = new Random(118L);
+    StepScheduler scheduler = new StepScheduler(4, 3);
+    List<RobotImpl> robots = new ArrayList<RobotImpl>();
+
+    // Give each robot its own random target
+    for (int i = 0; i < 5000; i++) {
+      RobotImpl robot = new RobotImpl();
+      robot.setMaze(maze);
+      robot.setTargetLocation(new Point(1 + random.nextInt(29), 1 + random.nextInt(29)));
+      HomingController controller = new HomingController();
+      controller.setRobot(robot);
+      scheduler.add(controller);
+      robots.add(robot);
+    }
+    scheduler.run();
+
+    assertTrue("Some robots haven't finished", scheduler.getUnfinished() == 0);
+    long total = 0;
+    for (RobotImpl robot : robots) {
+      Point start = maze.getStart();
+      Point target = robot.getTargetLocation();
+      int shortest = Math.abs(start.x - target.x) + Math.abs(start.y - target.y);
+      assertTrue(
+        "Robot doesn't reach its target",
+        robot.getLocation().equals(target));
+      assertTrue(
+        "Robot doesn't home in on its target",
+        robot.getSteps() == shortest);
+      // A robot that starts on its target still has one go
+      total += Math.max(robot.getSteps(), 1);
+    }
+    assertTrue("Moves are miscounted", scheduler.getMoves() == total);
+  }
+
+  /*
+    Tests whether every robot gets a slice before any robot gets a
+    second one.
+  */
+  @Test(timeout=10000)
+  public void fairnessTest() throws InterruptedException {
+    final List<Integer> order = new ArrayList<Integer>();
+    StepScheduler scheduler = new StepScheduler(1, 2);
+
+    // Each controller records its number every move and finishes
+    // after four moves
+    for (int i = 0; i < 3; i++) {
+      final int number = i;
+      scheduler.add(new StepController() {
+        private int moves;
+
+        public void setRobot(IRobot robot) {
+        }
+
+        public void begin() {
+          moves = 0;
+        }
+
+        public boolean step() {
+          order.add(number);
+          return ++moves < 4;
+        }
+      });
+    }
+    scheduler.run();
+
+    // With one worker and slices of two moves the robots take turns
+    Integer[] expected = {0, 0, 1, 1, 2, 2, 0, 0, 1, 1, 2, 2};
+    assertEquals("Robots don't take turns", Arrays.asList(expected), order);
+  }
+
+  /*
+    Tests whether the random and pledge controllers reach the target
+    when they are stepped rather than started.
+  */
+  @Test(timeout=20000)
+  public void steppedControllersTest() throws InterruptedException {
+    StepScheduler scheduler = new StepScheduler(2, 100);
+    List<RobotImpl> robots = new ArrayList<RobotImpl>();
+    for (int i = 0; i < 20; i++) {
+      Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.PRIM, 11, 11, i);
+      RobotImpl robot = new RobotImpl();
+      robot.setMaze(maze);
+      StepController controller;
+      if (i % 2 == 0) {
+        controller = new RandomController(i);
+      } else {
+        controller = new PledgeController();
+      }
+      controller.setRobot(robot);
+      scheduler.add(controller);
+      robots.add(robot);
+    }
+    scheduler.run();
+
+    for (RobotImpl robot : robots) {
+      assertTrue(
+        "Stepped controller doesn't reach the target",
+        robot.getLocation().equals(robot.getTargetLocation()));
+      assertTrue(
+        "Stepped controller walks into walls",
+        robot.getCollisions() == 0);
+    }
+  }
+
+  /*
+    Tests whether robots that can't reach their targets are given up on
+    once they use up their moves, and whether a controller that throws
+    an exception is given up on, without stopping the other robots.
+  */
+  @Test(timeout=10000)
+  public void unreachableTargetTest() throws InterruptedException {
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.OPEN, 11, 11, 1L);
+    StepScheduler scheduler = new StepScheduler(4, 5);
+    scheduler.setMoveBudget(1000);
+
+    // One robot has its target inside the wall round the edge, and one
+    // controller fails on its third move
+    RobotImpl walledOff = new RobotImpl();
+    walledOff.setMaze(maze);
+    walledOff.setTargetLocation(new Point(0, 5));
+    HomingController stuck = new HomingController();
+    stuck.setRobot(walledOff);
+    scheduler.add(stuck);
+    scheduler.add(new StepController() {
+      private int moves;
+
+      public void setRobot(IRobot robot) {
+      }
+
+      public void begin() {
+        moves = 0;
+      }
+
+      public boolean step() {
+        if (++moves == 3) {
+          throw new IllegalStateException("broken controller");
+        }
+        return true;
+      }
+    });
+    List<RobotImpl> robots = new ArrayList<RobotImpl>();
+    for (int i = 0; i < 10; i++) {
+      RobotImpl robot = new RobotImpl();
+      robot.setMaze(maze);
+      robot.setTargetLocation(new Point(9, 1 + i % 9));
+      HomingController controller = new HomingController();
+      controller.setRobot(robot);
+      scheduler.add(controller);
+      robots.add(robot);
+    }
+    scheduler.run();
+
+    for (RobotImpl robot : robots) {
+      assertTrue(
+        "Robot doesn't reach its target",
+        robot.getLocation().equals(robot.getTargetLocation()));
+    }
+    assertEquals("Walled off robot isn't given up on", 1, scheduler.getExhausted());
+    assertEquals("Walled off robot makes more moves than its budget",
+      1000, walledOff.getSteps());
+    assertEquals("Failing controller isn't reported", 1, scheduler.getFailures().size());
+    assertEquals("Wrong exception reported", "broken controller",
+      scheduler.getFailures().get(0).getMessage());
+    assertEquals("Wrong number of unfinished robots", 2, scheduler.getUnfinished());
+  }
+
+  /*
+    Tests whether stop makes run return while a robot that can never
+    reach its target is still being run.
+  */
+  @Test(timeout=10000)
+  public void stopTest() throws InterruptedException {
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.OPEN, 11, 11, 1L);
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    robot.setTargetLocation(new Point(0, 5));
+    HomingController controller = new HomingController();
+    controller.setRobot(robot);
+    final StepScheduler scheduler = new StepScheduler(2, 16);
+    scheduler.add(controller);
+
+    Thread stopper = new Thread(() -> {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      scheduler.stop();
+    });
+    stopper.start();
+    scheduler.run();
+    stopper.join();
+
+    assertEquals("Stopped robot isn't left unfinished", 1, scheduler.getUnfinished());
+    assertTrue("Robot doesn't move before it is stopped", robot.getSteps() > 0);
+  }
+
+  /*
+    Tests whether a stop made before run starts is kept, so that run
+    returns without moving any robot.
+  */
+  @Test(timeout=10000)
+  public void stopBeforeRunTest() throws InterruptedException {
+    Maze maze = SeededMazeGenerator.generate(SeededMazeGenerator.OPEN, 11, 11, 1L);
+    RobotImpl robot = new RobotImpl();
+    robot.setMaze(maze);
+    robot.setTargetLocation(new Point(0, 5));
+    HomingController controller = new HomingController();
+    controller.setRobot(robot);
+    StepScheduler scheduler = new StepScheduler(2, 16);
+    scheduler.add(controller);
+
+    scheduler.stop();
+    scheduler.run();
+
+    assertEquals("Robot moves after the scheduler is stopped", 0, robot.getSteps());
+    assertEquals("Stopped robot isn't left unfinished", 1, scheduler.getUnfinished());
+  }
+
+  /*
+    Tests whether workers with no robot to run wait instead of spinning
+    while another worker moves the only robot.
+  */
+  @Test(timeout=10000)
+  public void idleWorkersTest() throws InterruptedException {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    final long[] idleNanos = {-1};
+    // A robot that takes 1 ms a move for 200 moves, and adds up the time
+    // the other workers have spent on the CPU just before it finishes
+    StepController slow = new StepController() {
+      private int moves;
+
+      public void setRobot(IRobot robot) {
+      }
+
+      public void begin() {
+      }
+
+      public boolean step() {
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        if (++moves < 200) {
+          return true;
+        }
+        idleNanos[0] = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+          if (thread != Thread.currentThread()
+              && thread.getName().startsWith("step-worker-")) {
+            idleNanos[0] += Math.max(0, threads.getThreadCpuTime(thread.getId()));
+          }
+        }
+        return false;
+      }
+    };
+    StepScheduler scheduler = new StepScheduler(4, 16);
+    scheduler.add(slow);
+    scheduler.run();
+
+    assertTrue("Idle worker time isn't measured", idleNanos[0] >= 0);
+    assertTrue(
+      "Idle workers spin for " + idleNanos[0] / 1000000 + " ms",
+      idleNanos[0] < 50000000L);
+  }
+}